@@ -20,6 +20,13 @@ java.toolchain {
     languageVersion.set(JavaLanguageVersion.of(17))
 }
 
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets["main"].output
+        runtimeClasspath += sourceSets["main"].output
+    }
+}
+
 dependencies {
     compileOnly("org.slf4j:slf4j-api:2.0.2")
     compileOnly("org.jetbrains:annotations:23.0.0")
@@ -27,12 +34,31 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter-api:5.9.1")
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.9.1")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhImplementation"("org.jetbrains:annotations:23.0.0")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 tasks.test {
     useJUnitPlatform()
 }
 
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs JMH benchmarks with the GC profiler. Pass JMH options with --args, e.g. --args=\"QueryBenchmark -f 1\""
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    argumentProviders.add(CommandLineArgumentProvider { listOf("-prof", "gc") })
+}
+
+tasks.register<JavaExec>("startupProfile") {
+    group = "verification"
+    description = "Compares startup time and peak RSS of eager / deferred holiday data loading (and a native executable if given with --args)"
+    classpath = sourceSets["test"].runtimeClasspath
+    mainClass.set("one.cafebabe.businesscalendar4j.StartupProfile")
+}
+
 tasks.withType<JavaCompile>().configureEach {
     options.compilerArgs.addAll(listOf("--module-version", version.toString()))
 }
@@ -0,0 +1,91 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.Locale;
+
+/**
+ * Calendars used by benchmarks
+ */
+public enum Calendars {
+    /**
+     * Japanese public holidays, closed on weekends
+     */
+    japan {
+        @Override
+        BusinessCalendar build() {
+            return BusinessCalendar.newBuilder()
+                    .locale(Locale.JAPANESE)
+                    .holiday(BusinessCalendar.JAPAN.PUBLIC_HOLIDAYS, BusinessCalendar.CLOSED_ON_SATURDAYS_AND_SUNDAYS)
+                    .hours("9-12, 13-18")
+                    .build();
+        }
+    },
+    /**
+     * U.S. public holidays, closed on weekends
+     */
+    unitedStates {
+        @Override
+        BusinessCalendar build() {
+            return BusinessCalendar.newBuilder()
+                    .locale(Locale.ENGLISH)
+                    .holiday(BusinessCalendar.UNITED_STATES.PUBLIC_HOLIDAYS, BusinessCalendar.CLOSED_ON_SATURDAYS_AND_SUNDAYS)
+                    .hours("9am-5pm")
+                    .build();
+        }
+    },
+    /**
+     * predicates configured with the builder
+     */
+    predicates {
+        @Override
+        BusinessCalendar build() {
+            return BusinessCalendar.newBuilder()
+                    .on(12, 31).holiday("New Year's Eve")
+                    .on(1, 1).holiday("New Year's Day")
+                    .on(2, DayOfWeek.WEDNESDAY).holiday("closed on every 2nd Wednesday")
+                    .on(DayOfWeek.SUNDAY).holiday("closed on Sunday")
+                    .on(DayOfWeek.SATURDAY).hours("10-15")
+                    .on(12, 30).hours("10-12")
+                    .hours("9:00-12:00, 13:00-17:00")
+                    .build();
+        }
+    },
+    /**
+     * CSV configuration with 2000 one-off holidays
+     */
+    csvEvents {
+        @Override
+        BusinessCalendar build() {
+            try {
+                final Path path = Files.createTempFile("benchmark", ".csv");
+                Files.write(path, LoadBenchmark.csvLines(2000));
+                final BusinessCalendar calendar = BusinessCalendar.newBuilder().csv(path).build();
+                Files.delete(path);
+                return calendar;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    };
+
+    abstract BusinessCalendar build();
+}
@@ -0,0 +1,47 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Pre-generated query dates, so that benchmarks don't measure a constant date
+ */
+final class Dates {
+    static final int SIZE = 1024;
+    private static final int MASK = SIZE - 1;
+
+    private final LocalDate[] dates = new LocalDate[SIZE];
+    private int index = 0;
+
+    /**
+     * @param fromYear from year (inclusive)
+     * @param toYear   to year (inclusive)
+     */
+    Dates(int fromYear, int toYear) {
+        final Random random = new Random(42);
+        final long from = LocalDate.of(fromYear, 1, 1).toEpochDay();
+        final long days = LocalDate.of(toYear, 12, 31).toEpochDay() - from + 1;
+        for (int i = 0; i < SIZE; i++) {
+            dates[i] = LocalDate.ofEpochDay(from + random.nextInt((int) days));
+        }
+    }
+
+    LocalDate next() {
+        return dates[index++ & MASK];
+    }
+}
@@ -0,0 +1,52 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Predefined holiday rules.<br>
+ * Japan.PUBLIC_HOLIDAYS is measured both inside the cabinet office data (table lookup) and beyond it (algorithm).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HolidayRulesBenchmark {
+    private final Dates insideCabinetOfficeData = new Dates(1960, Japan.getCabinetOfficialHolidayDataLastDay().getYear() - 1);
+    private final Dates beyondCabinetOfficeData = new Dates(Japan.getCabinetOfficialHolidayDataLastDay().getYear() + 1,
+            Japan.getCabinetOfficialHolidayDataLastDay().getYear() + 30);
+    private final Dates unitedStatesDates = new Dates(1970, 2050);
+
+    @Benchmark
+    public String japanInsideCabinetOfficeData() {
+        return BusinessCalendar.JAPAN.PUBLIC_HOLIDAYS.apply(insideCabinetOfficeData.next());
+    }
+
+    @Benchmark
+    public String japanBeyondCabinetOfficeData() {
+        return BusinessCalendar.JAPAN.PUBLIC_HOLIDAYS.apply(beyondCabinetOfficeData.next());
+    }
+
+    @Benchmark
+    public String unitedStates() {
+        return BusinessCalendar.UNITED_STATES.PUBLIC_HOLIDAYS.apply(unitedStatesDates.next());
+    }
+}
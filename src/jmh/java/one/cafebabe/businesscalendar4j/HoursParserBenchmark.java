@@ -0,0 +1,134 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing business hours: the regex based parser used up to 17.0, the hand-written parser, and the cached parser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HoursParserBenchmark {
+    private static final String[] HOURS = {"9-17", "9:00-12:00, 13:00-17:00", "10AM-11:30 a.m., 12 noon to 4:30pm",
+            "午前9時〜午後5時半", "0-24"};
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        for (String hours : HOURS) {
+            blackhole.consume(regexParse(hours));
+        }
+    }
+
+    @Benchmark
+    public void handWritten(Blackhole blackhole) {
+        for (String hours : HOURS) {
+            blackhole.consume(BusinessHoursParser.parseUncached(hours));
+        }
+    }
+
+    @Benchmark
+    public void cached(Blackhole blackhole) {
+        for (String hours : HOURS) {
+            blackhole.consume(BusinessHoursParser.parse(hours));
+        }
+    }
+
+    /**
+     * reloading a store configuration, mostly made of "hours" lines
+     */
+    @State(Scope.Thread)
+    public static class StoreCsv {
+        CsvConfiguration csvConfiguration;
+        List<String> csvLines;
+
+        @Setup
+        public void setup() throws IOException {
+            final Path path = Files.createTempFile("benchmark", ".csv");
+            Files.writeString(path, "hours,9-17\n");
+            csvConfiguration = CsvConfiguration.getInstance(path);
+            Files.delete(path);
+            csvLines = new ArrayList<>();
+            csvLines.add("hours,sat,sun,10:00-15:00");
+            csvLines.add("hours,mon,tue,wed,thu,fri,9:00-12:00, 13:00-17:00");
+            LocalDate date = LocalDate.of(2020, 1, 1);
+            for (int i = 0; i < 1000; i++) {
+                csvLines.add("hours," + date.getYear() + "/" + date.getMonthValue() + "/" + date.getDayOfMonth() + "," + HOURS[i % HOURS.length]);
+                date = date.plusDays(1);
+            }
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<String> reloadStoreCsv(StoreCsv csv) {
+        return csv.csvConfiguration.csv(csv.csvLines);
+    }
+
+    static List<BusinessHourFromTo> regexParse(String businessHour) {
+        final List<BusinessHourFromTo> businessHourFromTos = new ArrayList<>();
+        final String[] slots = businessHour.replaceAll(" ", "").replaceAll("[、&]", ",").split(",");
+        for (String slot : slots) {
+            final String[] split = slot.replaceAll("(to|から|〜|~)", "-").split("-");
+            final LocalTime from = regexToLocalTime(split[0]);
+            final LocalTime to = regexToLocalTime(split[1]);
+            businessHourFromTos.add(new BusinessHourFromTo(from, to));
+        }
+        businessHourFromTos.sort(Comparator.comparing(BusinessHourFromTo::from));
+        return List.copyOf(businessHourFromTos);
+    }
+
+    private static LocalTime regexToLocalTime(String timeStr) {
+        final String ampm = timeStr.replaceAll("[0-9.:時半]", "").toLowerCase();
+        final boolean half = timeStr.contains("半");
+        timeStr = timeStr.replaceAll("[^0-9:]", "");
+        final String[] split = timeStr.split(":");
+        int hour = ampm.matches("(noon|正午)") ? 12 : Integer.parseInt(split[0]);
+        if (ampm.matches("(a|am|午前)") && hour == 12) {
+            hour = 0;
+        }
+        if (ampm.matches("(p|pm|午後)") && hour != 12) {
+            hour += 12;
+        }
+        if (ampm.matches("midnight")) {
+            hour = 24;
+        }
+        int minutes = 2 <= split.length ? Integer.parseInt(split[1]) : 0;
+        if (half) {
+            minutes = 30;
+        }
+        final int seconds = 3 <= split.length ? Integer.parseInt(split[2]) : 0;
+        if (hour == 24 && minutes == 0 && seconds == 0) {
+            return LocalTime.of(0, 0);
+        }
+        return LocalTime.of(hour, minutes, seconds);
+    }
+}
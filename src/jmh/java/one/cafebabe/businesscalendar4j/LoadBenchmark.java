@@ -0,0 +1,105 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing CSV configurations and the cabinet office holiday data
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadBenchmark {
+    private byte[] syukujitsu;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream is = Objects.requireNonNull(LoadBenchmark.class.getResourceAsStream("/syukujitsu.csv"))) {
+            syukujitsu = is.readAllBytes();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Csv {
+        /**
+         * number of holiday lines in the CSV configuration
+         */
+        @Param({"10", "1000", "100000"})
+        public int lines;
+
+        /**
+         * parse lines in parallel. applies to configurations with 1024 or more lines
+         */
+        @Param({"false", "true"})
+        public boolean parallel;
+
+        CsvConfiguration csvConfiguration;
+        List<String> csvLines;
+
+        @Setup
+        public void setup() throws IOException {
+            final Path path = Files.createTempFile("benchmark", ".csv");
+            Files.writeString(path, "hours,9-17\n");
+            csvConfiguration = CsvConfiguration.getInstance(path).parallel(parallel);
+            Files.delete(path);
+            csvLines = csvLines(lines);
+        }
+    }
+
+    static List<String> csvLines(int holidays) {
+        final List<String> csv = new ArrayList<>();
+        csv.add("# benchmark");
+        csv.add("hours,2,sun,0-24");
+        csv.add("hours,sun,1-17,18-19");
+        csv.add("hours,mon,tue,wed,thu,fri,9:00-12:00, 13:00-17:00");
+        csv.add("hours,12/31,10am-3pm");
+        LocalDate date = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < holidays; i++) {
+            csv.add("holiday," + date.getYear() + "/" + date.getMonthValue() + "/" + date.getDayOfMonth() + ",holiday" + i);
+            date = date.plusDays(3);
+        }
+        csv.add("holiday,5/22,May 22nd");
+        csv.add("holiday,2,mon,every 2nd monday");
+        return csv;
+    }
+
+    @Benchmark
+    public List<String> csvConfiguration(Csv csv) {
+        return csv.csvConfiguration.csv(csv.csvLines);
+    }
+
+    @Benchmark
+    public TreeMap<LocalDate, String> cabinetOfficeData() throws IOException {
+        return CSVHolidays.load(new ByteArrayInputStream(syukujitsu), "japanese.", Charset.forName("Shift_JIS"));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single date queries against BusinessCalendar
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+    @Param({"japan", "unitedStates", "predicates", "csvEvents"})
+    public Calendars calendar;
+
+    private BusinessCalendar businessCalendar;
+    private final Dates dates = new Dates(2000, 2030);
+
+    @Setup
+    public void setup() {
+        businessCalendar = calendar.build();
+    }
+
+    @Benchmark
+    public boolean isHoliday() {
+        return businessCalendar.isHoliday(dates.next());
+    }
+
+    @Benchmark
+    public Holiday getHoliday() {
+        return businessCalendar.getHoliday(dates.next());
+    }
+
+    @Benchmark
+    public List<BusinessHourSlot> getBusinessHourSlots() {
+        return businessCalendar.getBusinessHourSlots(dates.next());
+    }
+
+    @Benchmark
+    public LocalDateTime nextBusinessHourStart() {
+        return businessCalendar.nextBusinessHourStart(LocalDateTime.of(dates.next(), LocalTime.NOON));
+    }
+
+    @Benchmark
+    public LocalDate firstBusinessDay() {
+        return businessCalendar.firstBusinessDay(dates.next());
+    }
+}
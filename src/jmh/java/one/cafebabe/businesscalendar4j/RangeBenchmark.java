@@ -0,0 +1,60 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Range queries against BusinessCalendar over 1, 10 and 50 years
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RangeBenchmark {
+    @Param({"japan", "unitedStates", "predicates"})
+    public Calendars calendar;
+
+    @Param({"1", "10", "50"})
+    public int years;
+
+    private BusinessCalendar businessCalendar;
+    private LocalDate from;
+    private LocalDate to;
+
+    @Setup
+    public void setup() {
+        businessCalendar = calendar.build();
+        from = LocalDate.of(2000, 1, 1);
+        to = from.plusYears(years).minusDays(1);
+    }
+
+    @Benchmark
+    public List<LocalDate> getBusinessDaysBetween() {
+        return businessCalendar.getBusinessDaysBetween(from, to);
+    }
+
+    @Benchmark
+    public List<Holiday> getHolidaysBetween() {
+        return businessCalendar.getHolidaysBetween(from, to);
+    }
+}
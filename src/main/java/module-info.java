@@ -4,6 +4,9 @@ w */
 module one.cafebabe.businessCalendar4j {
     exports one.cafebabe.businesscalendar4j;
     requires java.logging;
+    requires java.management;
+    requires static jdk.management;
+    requires jdk.jfr;
     requires static org.slf4j;
     requires static org.jetbrains.annotations;
 }
\ No newline at end of file
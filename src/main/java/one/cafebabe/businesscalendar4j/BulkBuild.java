@@ -0,0 +1,182 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Calendars being built concurrently by {@link BusinessCalendar#buildAll(Map, int)}, with aggregated progress and
+ * failures.<br>
+ * Calendars are built on at most parallelism daemon threads, which are released once every calendar is built.
+ *
+ * @param <K> key type
+ * @since 17.1.0
+ */
+public final class BulkBuild<K> {
+    private static final Logger logger = Logger.getLogger();
+    private final int total;
+    private final long start = System.nanoTime();
+    private volatile long end = -1;
+    private final AtomicInteger completed = new AtomicInteger();
+    private final Map<K, BusinessCalendar> calendars = new ConcurrentHashMap<>();
+    private final Map<K, Throwable> failures = new ConcurrentHashMap<>();
+    private final CompletableFuture<BulkBuild<K>> done = new CompletableFuture<>();
+
+    private BulkBuild(int total) {
+        this.total = total;
+    }
+
+    @NotNull
+    static <K> BulkBuild<K> start(@NotNull Map<K, BusinessCalendarBuilder> builders, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism should be greater than 0, provided: " + parallelism);
+        }
+        for (K key : builders.keySet()) {
+            Objects.requireNonNull(key, "keys should not be null");
+        }
+        final BulkBuild<K> bulkBuild = new BulkBuild<>(builders.size());
+        if (builders.isEmpty()) {
+            bulkBuild.complete();
+            return bulkBuild;
+        }
+        final AtomicInteger threads = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, builders.size()), runnable -> {
+            final Thread thread = new Thread(runnable, "BusinessCalendar bulk build-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        bulkBuild.done.whenComplete((result, throwable) -> executor.shutdown());
+        builders.forEach((key, builder) -> {
+            try {
+                builder.buildAsync(executor).whenComplete((calendar, throwable) -> bulkBuild.built(key, calendar, throwable));
+            } catch (RuntimeException e) {
+                bulkBuild.built(key, null, e);
+            }
+        });
+        return bulkBuild;
+    }
+
+    private void built(@NotNull K key, @Nullable BusinessCalendar calendar, @Nullable Throwable throwable) {
+        if (throwable != null) {
+            final Throwable cause = throwable.getCause() != null ? throwable.getCause() : throwable;
+            failures.put(key, cause);
+            logger.warn(() -> "failed to build the calendar: " + key, cause);
+        } else {
+            calendars.put(key, calendar);
+        }
+        if (completed.incrementAndGet() == total) {
+            complete();
+        }
+    }
+
+    private void complete() {
+        end = System.nanoTime();
+        logger.info(() -> "built " + calendars.size() + " of " + total + " calendars in " + getElapsed()
+                + (failures.isEmpty() ? "" : ", failed: " + failures.keySet()));
+        done.complete(this);
+    }
+
+    /**
+     * @return number of calendars to be built
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return number of calendars built or failed so far
+     */
+    public int getCompleted() {
+        return completed.get();
+    }
+
+    /**
+     * @return number of calendars failed so far
+     */
+    public int getFailed() {
+        return failures.size();
+    }
+
+    /**
+     * @return calendars built so far, by key
+     */
+    @NotNull
+    public Map<K, BusinessCalendar> getCalendars() {
+        return Map.copyOf(calendars);
+    }
+
+    /**
+     * @return causes of the failures so far, by key
+     */
+    @NotNull
+    public Map<K, Throwable> getFailures() {
+        return Map.copyOf(failures);
+    }
+
+    /**
+     * @return time taken so far, or time taken to build every calendar once done
+     */
+    @NotNull
+    public Duration getElapsed() {
+        final long end = this.end;
+        return Duration.ofNanos((end != -1 ? end : System.nanoTime()) - start);
+    }
+
+    /**
+     * @return true if every calendar is built or failed
+     */
+    public boolean isDone() {
+        return done.isDone();
+    }
+
+    /**
+     * @return future completed with this instance once every calendar is built or failed. Never completed
+     * exceptionally, failures are reported by {@link #getFailures()}
+     */
+    @NotNull
+    public CompletableFuture<BulkBuild<K>> whenDone() {
+        return done;
+    }
+
+    /**
+     * Waits until every calendar is built or failed
+     *
+     * @return this instance
+     */
+    @NotNull
+    public BulkBuild<K> join() {
+        return done.join();
+    }
+
+    @Override
+    public String toString() {
+        return "BulkBuild{" +
+                "completed=" + completed.get() + "/" + total +
+                ", failed=" + failures.size() +
+                ", elapsed=" + getElapsed() +
+                '}';
+    }
+}
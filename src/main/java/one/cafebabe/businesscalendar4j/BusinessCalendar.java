@@ -18,18 +18,24 @@ package one.cafebabe.businesscalendar4j;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
 
 /**
  * Java class representing business calendar
  */
-public final class BusinessCalendar {
+public final class BusinessCalendar implements AutoCloseable {
     /**
      * Predefined holidays in the United States
      */
@@ -38,15 +44,80 @@ public final class BusinessCalendar {
      * Predefined holidays in Japan
      */
     public static final Japan JAPAN = Japan.getInstance();
-    private final List<Function<LocalDate, String>> holidayLogics = new ArrayList<>();
-    private final List<Function<LocalDate, List<BusinessHourSlot>>> businessHours = new ArrayList<>();
+    private final List<Function<LocalDate, String>> holidayLogics;
+    private final List<Function<LocalDate, List<BusinessHourSlot>>> businessHours;
 
-    private final ResourceBundle resource;
+    private final HolidayNames names;
+    private final List<Versioned> sources;
+    private final BusinessCalendarMetrics metrics;
+    private final boolean instrumented;
+    /**
+     * counts the rules evaluated by queries, null unless instrumented
+     */
+    @Nullable
+    private final RuleCounter ruleCounter;
+    @Nullable
+    private final DayCache cache;
+    @Nullable
+    private final DayIndex index;
+    @Nullable
+    private final GregorianCycle cycle;
+    private final Overlay overlay;
+    /**
+     * closed form for counting business days, derived from the holidays from closureFrom to closureTo
+     */
+    @Nullable
+    private final AtomicReference<WeeklyClosure> closure;
+    private final LocalDate closureFrom;
+    private final LocalDate closureTo;
 
     BusinessCalendar(BusinessCalendarBuilder conf) {
-        this.resource = ResourceBundle.getBundle("holidays", conf.locale);
-        holidayLogics.add(conf.holiday());
-        this.businessHours.add(conf.getBusinessHours());
+        this.names = HolidayNames.of(conf.locale);
+        this.holidayLogics = List.of(conf.holiday());
+        this.businessHours = List.of(conf.getBusinessHours());
+        this.sources = List.copyOf(conf.sources);
+        this.metrics = conf.metrics;
+        this.instrumented = metrics != BusinessCalendarMetrics.NOOP;
+        this.ruleCounter = conf.ruleCounter;
+        this.cycle = conf.gregorianCycle ? GregorianCycle.of(this::evaluateRules) : null;
+        this.overlay = Overlay.of(conf.overlayJournal);
+        this.cache = conf.cacheSize > 0 ? new DayCache(conf.cacheSize, conf.sources, this::evaluate, metrics) : null;
+        this.index = conf.indexFromYear <= conf.indexToYear ?
+                new DayIndex(conf.indexFromYear, conf.indexToYear, conf.offHeap, conf.sources, this::evaluate, metrics) : null;
+        this.closureFrom = LocalDate.of(conf.closedFormFromYear, 1, 1);
+        this.closureTo = LocalDate.of(Math.max(conf.closedFormFromYear, conf.closedFormToYear), 12, 31);
+        this.closure = conf.closedFormFromYear <= conf.closedFormToYear ? new AtomicReference<>(compileClosure()) : null;
+    }
+
+    private BusinessCalendar(BusinessCalendar calendar, HolidayNames names) {
+        this.names = names;
+        this.holidayLogics = calendar.holidayLogics;
+        this.businessHours = calendar.businessHours;
+        this.sources = calendar.sources;
+        this.metrics = calendar.metrics;
+        this.instrumented = calendar.instrumented;
+        this.ruleCounter = calendar.ruleCounter;
+        this.cache = calendar.cache;
+        this.index = calendar.index;
+        this.cycle = calendar.cycle;
+        this.overlay = calendar.overlay;
+        this.closure = calendar.closure;
+        this.closureFrom = calendar.closureFrom;
+        this.closureTo = calendar.closureTo;
+    }
+
+    /**
+     * Returns a view of this calendar which names holidays in the specified locale.<br>
+     * The view shares rules, CSV configurations, the result cache and the index with this calendar.
+     *
+     * @param locale locale
+     * @return calendar in the specified locale
+     * @since 17.1.0
+     */
+    @NotNull
+    public BusinessCalendar withLocale(@NotNull Locale locale) {
+        final HolidayNames localized = HolidayNames.of(locale);
+        return localized == names ? this : new BusinessCalendar(this, localized);
     }
 
     /**
@@ -58,6 +129,22 @@ public final class BusinessCalendar {
         return new BusinessCalendarBuilder();
     }
 
+    /**
+     * Builds calendars concurrently, on at most parallelism daemon threads. CSV configurations specified to the
+     * builders by path or URL are loaded, and indexes are compiled, on those threads.<br>
+     * Progress and failures can be polled from the returned instance, and are logged once every calendar is built.
+     *
+     * @param builders    builders by key. keys should not be null
+     * @param parallelism maximum number of calendars built at a time
+     * @param <K>         key type
+     * @return calendars being built
+     * @since 17.1.0
+     */
+    @NotNull
+    public static <K> BulkBuild<K> buildAll(@NotNull Map<K, BusinessCalendarBuilder> builders, int parallelism) {
+        return BulkBuild.start(builders, parallelism);
+    }
+
     /**
      * Fixed algorithm to close on Saturdays and Sundays
      *
@@ -76,7 +163,10 @@ public final class BusinessCalendar {
      * @return true if the specified date is a holiday
      */
     public boolean isHoliday(@NotNull LocalDate date) {
-        return holidayLogics.stream().anyMatch(e -> e.apply(date) != null);
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.IS_HOLIDAY, () -> holiday(date));
+        }
+        return holiday(date);
     }
 
     /**
@@ -86,8 +176,7 @@ public final class BusinessCalendar {
      * @since 1.3
      */
     public boolean isHoliday() {
-        final LocalDate today = LocalDate.now();
-        return holidayLogics.stream().anyMatch(e -> e.apply(today) != null);
+        return isHoliday(LocalDate.now());
     }
 
     /**
@@ -97,7 +186,10 @@ public final class BusinessCalendar {
      * @return true if the specified date is a business day
      */
     public boolean isBusinessDay(@NotNull LocalDate date) {
-        return !isHoliday(date);
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.IS_BUSINESS_DAY, () -> !holiday(date));
+        }
+        return !holiday(date);
     }
 
     /**
@@ -107,7 +199,7 @@ public final class BusinessCalendar {
      * @since 1.3
      */
     public boolean isBusinessDay() {
-        return !isHoliday(LocalDate.now());
+        return isBusinessDay(LocalDate.now());
     }
 
     /**
@@ -118,7 +210,14 @@ public final class BusinessCalendar {
      * @since 1.8
      */
     public boolean isBusinessHour(@NotNull LocalDateTime dateTime) {
-        return isBusinessDay(dateTime.toLocalDate()) && getBusinessHourSlots(dateTime.toLocalDate()).stream().anyMatch(e -> e.isBusinessHour(dateTime));
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.IS_BUSINESS_HOUR, () -> businessHour(dateTime));
+        }
+        return businessHour(dateTime);
+    }
+
+    private boolean businessHour(@NotNull LocalDateTime dateTime) {
+        return !holiday(dateTime.toLocalDate()) && slots(dateTime.toLocalDate()).stream().anyMatch(e -> e.isBusinessHour(dateTime));
     }
 
     /**
@@ -142,14 +241,51 @@ public final class BusinessCalendar {
      */
     @NotNull
     public List<BusinessHourSlot> getBusinessHourSlots(@NotNull LocalDate date) {
-        if (isHoliday(date)) {
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.GET_BUSINESS_HOUR_SLOTS, () -> slots(date));
+        }
+        return slots(date);
+    }
+
+    @NotNull
+    private List<BusinessHourSlot> slots(@NotNull LocalDate date) {
+        final Overlay.Entry override = overlay.get(date);
+        if (override != null) {
+            if (override.holidayKey() != null) {
+                return Collections.emptyList();
+            }
+            if (override.slots() != null) {
+                return override.slots().apply(date);
+            }
+            return evaluateHours(date);
+        }
+        if (index != null) {
+            final int entry = index.entry(date);
+            if (entry != DayIndex.NOT_INDEXED) {
+                return index.slots(entry, date);
+            }
+        }
+        if (cache != null) {
+            return cache.get(date).slots();
+        }
+        return evaluateSlots(date);
+    }
+
+    @NotNull
+    private List<BusinessHourSlot> evaluateSlots(@NotNull LocalDate date) {
+        if (evaluateHolidayKey(date) != null) {
             return Collections.emptyList();
         } else {
-            return businessHours.stream().map(e -> e.apply(date)).filter(Objects::nonNull).findFirst()
-                    .orElseGet(() -> OPEN24HOURS.apply(date));
+            return evaluateHours(date);
         }
     }
 
+    @NotNull
+    private List<BusinessHourSlot> evaluateHours(@NotNull LocalDate date) {
+        return businessHours.stream().map(e -> e.apply(date)).filter(Objects::nonNull).findFirst()
+                .orElseGet(() -> OPEN24HOURS.apply(date));
+    }
+
     /**
      * Returns when last business hours ended
      *
@@ -159,10 +295,18 @@ public final class BusinessCalendar {
      */
     @NotNull
     public LocalDateTime lastBusinessHourEnd(@NotNull LocalDateTime when) {
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.LAST_BUSINESS_HOUR_END, () -> lastBusinessHourEnd0(when));
+        }
+        return lastBusinessHourEnd0(when);
+    }
+
+    @NotNull
+    private LocalDateTime lastBusinessHourEnd0(@NotNull LocalDateTime when) {
         final LocalDate date = when.toLocalDate();
         LocalDateTime lastBusinessHourEnd = null;
-        if (isBusinessDay(date)) {
-            final List<BusinessHourSlot> slots = getBusinessHourSlots(date);
+        if (!holiday(date)) {
+            final List<BusinessHourSlot> slots = slots(date);
             final List<BusinessHourSlot> list = slots.stream().filter(e -> e.to().isBefore(when) || e.to().isEqual(when)).toList();
             if (!list.isEmpty()) {
                 lastBusinessHourEnd = list.get(list.size() - 1).to();
@@ -170,7 +314,7 @@ public final class BusinessCalendar {
 
         }
         if (lastBusinessHourEnd == null) {
-            final List<BusinessHourSlot> slots = getBusinessHourSlots(lastBusinessDay(date.minusDays(1)));
+            final List<BusinessHourSlot> slots = slots(lastBusinessDay0(date.minusDays(1)));
             lastBusinessHourEnd = slots.get(slots.size() - 1).to();
         }
         return lastBusinessHourEnd;
@@ -185,10 +329,18 @@ public final class BusinessCalendar {
      */
     @NotNull
     public LocalDateTime nextBusinessHourEnd(@NotNull LocalDateTime when) {
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.NEXT_BUSINESS_HOUR_END, () -> nextBusinessHourEnd0(when));
+        }
+        return nextBusinessHourEnd0(when);
+    }
+
+    @NotNull
+    private LocalDateTime nextBusinessHourEnd0(@NotNull LocalDateTime when) {
         final LocalDate date = when.toLocalDate();
         LocalDateTime nextBusinessHourEnd = null;
-        if (isBusinessDay(date)) {
-            final List<BusinessHourSlot> slots = getBusinessHourSlots(date);
+        if (!holiday(date)) {
+            final List<BusinessHourSlot> slots = slots(date);
             final List<BusinessHourSlot> list = slots.stream().filter(e -> e.to().isAfter(when) || e.to().isEqual(when)).toList();
             if (!list.isEmpty()) {
                 nextBusinessHourEnd = list.get(0).to();
@@ -196,7 +348,7 @@ public final class BusinessCalendar {
 
         }
         if (nextBusinessHourEnd == null) {
-            final List<BusinessHourSlot> slots = getBusinessHourSlots(firstBusinessDay(date.plusDays(1)));
+            final List<BusinessHourSlot> slots = slots(firstBusinessDay0(date.plusDays(1)));
             nextBusinessHourEnd = slots.get(0).to();
         }
 
@@ -212,10 +364,18 @@ public final class BusinessCalendar {
      */
     @NotNull
     public LocalDateTime lastBusinessHourStart(@NotNull LocalDateTime when) {
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.LAST_BUSINESS_HOUR_START, () -> lastBusinessHourStart0(when));
+        }
+        return lastBusinessHourStart0(when);
+    }
+
+    @NotNull
+    private LocalDateTime lastBusinessHourStart0(@NotNull LocalDateTime when) {
         final LocalDate date = when.toLocalDate();
         LocalDateTime lastBusinessHourStart = null;
-        if (isBusinessDay(date)) {
-            final List<BusinessHourSlot> slots = getBusinessHourSlots(date);
+        if (!holiday(date)) {
+            final List<BusinessHourSlot> slots = slots(date);
             final List<BusinessHourSlot> list = slots.stream().filter(e -> e.from().isBefore(when)).toList();
             if (!list.isEmpty()) {
                 lastBusinessHourStart = list.get(list.size() - 1).from();
@@ -223,7 +383,7 @@ public final class BusinessCalendar {
 
         }
         if (lastBusinessHourStart == null) {
-            final List<BusinessHourSlot> slots = getBusinessHourSlots(lastBusinessDay(date.minusDays(1)));
+            final List<BusinessHourSlot> slots = slots(lastBusinessDay0(date.minusDays(1)));
             lastBusinessHourStart = slots.get(slots.size() - 1).from();
         }
         return lastBusinessHourStart;
@@ -238,10 +398,18 @@ public final class BusinessCalendar {
      */
     @NotNull
     public LocalDateTime nextBusinessHourStart(@NotNull LocalDateTime when) {
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.NEXT_BUSINESS_HOUR_START, () -> nextBusinessHourStart0(when));
+        }
+        return nextBusinessHourStart0(when);
+    }
+
+    @NotNull
+    private LocalDateTime nextBusinessHourStart0(@NotNull LocalDateTime when) {
         final LocalDate date = when.toLocalDate();
         LocalDateTime nextBusinessHourStart = null;
-        if (isBusinessDay(date)) {
-            final List<BusinessHourSlot> slots = getBusinessHourSlots(date);
+        if (!holiday(date)) {
+            final List<BusinessHourSlot> slots = slots(date);
             final List<BusinessHourSlot> list = slots.stream().filter(e -> e.from().isAfter(when) || e.from().isEqual(when)).toList();
             if (!list.isEmpty()) {
                 nextBusinessHourStart = list.get(0).from();
@@ -249,7 +417,7 @@ public final class BusinessCalendar {
 
         }
         if (nextBusinessHourStart == null) {
-            final List<BusinessHourSlot> slots = getBusinessHourSlots(firstBusinessDay(date.plusDays(1)));
+            final List<BusinessHourSlot> slots = slots(firstBusinessDay0(date.plusDays(1)));
             nextBusinessHourStart = slots.get(0).from();
         }
 
@@ -264,29 +432,237 @@ public final class BusinessCalendar {
      */
     @Nullable
     public Holiday getHoliday(@NotNull LocalDate date) {
-        final Optional<String> first = holidayLogics.stream()
-                .map(e -> e.apply(date)).filter(Objects::nonNull).findFirst();
-        return first.map(s -> new Holiday(date, toHolidayString(s))).orElse(null);
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.GET_HOLIDAY, () -> holidayOf(date));
+        }
+        return holidayOf(date);
+    }
+
+    @Nullable
+    private Holiday holidayOf(@NotNull LocalDate date) {
+        final String key = holidayKey(date);
+        return key == null ? null : new Holiday(date, names.get(key));
+    }
+
+    private boolean holiday(@NotNull LocalDate date) {
+        return holidayKey(date) != null;
+    }
+
+    @Nullable
+    private String holidayKey(@NotNull LocalDate date) {
+        final Overlay.Entry override = overlay.get(date);
+        if (override != null) {
+            return override.holidayKey();
+        }
+        return ruleHolidayKey(date);
+    }
+
+    /**
+     * @param date date
+     * @return holiday name given by the rules, ignoring the holidays and business days set at runtime
+     */
+    @Nullable
+    private String ruleHolidayKey(@NotNull LocalDate date) {
+        if (cycle != null) {
+            return cycle.holidayKey(date.toEpochDay());
+        }
+        if (index != null) {
+            final int entry = index.entry(date);
+            if (entry != DayIndex.NOT_INDEXED) {
+                return index.holidayKey(entry);
+            }
+        }
+        if (cache != null) {
+            return cache.get(date).holidayKey();
+        }
+        return evaluateHolidayKey(date);
+    }
+
+    @NotNull
+    private DayCache.DayResult evaluate(@NotNull LocalDate date) {
+        final String holidayKey = evaluateHolidayKey(date);
+        return new DayCache.DayResult(holidayKey, holidayKey != null ? Collections.emptyList() : List.copyOf(evaluateHours(date)));
+    }
+
+    @Nullable
+    private String evaluateHolidayKey(@NotNull LocalDate date) {
+        if (cycle != null) {
+            return cycle.holidayKey(date.toEpochDay());
+        }
+        return evaluateRules(date);
+    }
+
+    @Nullable
+    private String evaluateRules(@NotNull LocalDate date) {
+        for (Function<LocalDate, String> holidayLogic : holidayLogics) {
+            final String key = holidayLogic.apply(date);
+            if (key != null) {
+                return key;
+            }
+        }
+        return null;
     }
 
-    private final static Pattern p = Pattern.compile("\\$\\{([a-z.A-Z]+)}");
+    private <T> T timed(@NotNull BusinessCalendarMetrics.Query query, @NotNull Supplier<T> supplier) {
+        final RuleCounter counter = ruleCounter;
+        final int rulesBefore = counter == null ? 0 : counter.count();
+        final long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            metrics.query(query, System.nanoTime() - start, counter == null ? 0 : counter.count() - rulesBefore);
+        }
+    }
+
+    /**
+     * Drops the index built with {@link BusinessCalendarBuilder#index(int, int)}. Queries on this calendar, and on
+     * views created with {@link #withLocale(Locale)}, fail with IllegalStateException afterwards. Off-heap buffers are
+     * freed by the garbage collector, as they are without close().<br>
+     * Does nothing on calendars without index.
+     *
+     * @since 17.1.0
+     */
+    @Override
+    public void close() {
+        if (index != null) {
+            index.close();
+        }
+    }
 
+    /**
+     * Evaluates every date in the range ahead of queries: recompiles the index segments changed by reloads, fills the
+     * result cache up to its capacity and compiles the names of the holidays in the locale of this calendar. Queries
+     * in the range don't pay those costs afterwards, as long as no CSV configuration is reloaded.
+     *
+     * @param from first date, inclusive
+     * @param to   last date, inclusive
+     * @return time taken and memory used
+     * @see BusinessCalendarBuilder#prewarm(LocalDate, LocalDate)
+     * @since 17.1.0
+     */
     @NotNull
-    private String toHolidayString(@NotNull String key) {
-        if (resource.containsKey(key)) {
-            return resource.getString(key);
+    public PrewarmStats prewarm(@NotNull LocalDate from, @NotNull LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to should be equal to or after from, provided: " + from + "-" + to);
+        }
+        final long allocatedBefore = allocatedBytes();
+        final long start = System.nanoTime();
+        long days = 0;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            final String key = holidayKey(date);
+            if (key != null) {
+                names.get(key);
+            } else {
+                slots(date);
+            }
+            days++;
         }
-        final Matcher matcher = p.matcher(key);
-        StringBuilder b = new StringBuilder();
-        int start = 0;
-        while (matcher.find()) {
-            b.append(key, start, matcher.start());
-            final String group = matcher.group(1);
-            b.append(resource.getString(group));
-            start = matcher.end();
+        final Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        final long allocatedAfter = allocatedBytes();
+        return new PrewarmStats(from, to, days, elapsed,
+                allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore, estimatedBytes());
+    }
+
+    /**
+     * Prewarms the range asynchronously, on the pool of {@link BusinessCalendarBuilder#buildAsync()}
+     *
+     * @param from first date, inclusive
+     * @param to   last date, inclusive
+     * @return future completed with the time taken and memory used
+     * @see #prewarm(LocalDate, LocalDate)
+     * @since 17.1.0
+     */
+    @NotNull
+    public CompletableFuture<PrewarmStats> prewarmAsync(@NotNull LocalDate from, @NotNull LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to should be equal to or after from, provided: " + from + "-" + to);
         }
-        b.append(key, start, key.length());
-        return b.toString();
+        return CompletableFuture.supplyAsync(() -> prewarm(from, to), BusinessCalendarBuilder.DefaultExecutor.INSTANCE);
+    }
+
+    /**
+     * @return bytes allocated by the current thread so far, or -1 if not supported
+     */
+    private static long allocatedBytes() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean
+                    && threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled()) {
+                return threadMXBean.getCurrentThreadAllocatedBytes();
+            }
+        } catch (LinkageError | UnsupportedOperationException ignore) {
+            // jdk.management is not available
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the approximate memory footprint of this calendar: compiled CSV configurations, the index and the result
+     * cache. Predefined holidays shared process-wide are not counted.
+     *
+     * @return bytes
+     */
+    long estimatedBytes() {
+        // the calendar, its builder state and lambdas
+        long bytes = 512;
+        for (Versioned source : sources) {
+            if (source instanceof CsvConfiguration csv) {
+                bytes += csv.estimatedBytes();
+            }
+        }
+        if (index != null) {
+            bytes += index.estimatedBytes();
+        }
+        if (cache != null) {
+            // a slot, a node and a result per entry
+            bytes += cache.capacity() * 64L;
+        }
+        if (cycle != null) {
+            bytes += cycle.estimatedBytes();
+        }
+        bytes += overlay.estimatedBytes();
+        if (closure != null) {
+            bytes += closure.get().estimatedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Adds a listener to be notified asynchronously after each successful reload of the CSV configurations and the
+     * Japanese holiday data this calendar consists of. Changed dates are reported per configuration, and may be
+     * overridden by other holiday logics of this calendar.
+     *
+     * @param listener listener
+     * @see CsvConfiguration#addReloadListener(ReloadListener)
+     * @since 17.1.0
+     */
+    public void addReloadListener(@NotNull ReloadListener listener) {
+        for (Versioned source : sources) {
+            source.addReloadListener(listener);
+        }
+    }
+
+    /**
+     * Removes a listener
+     *
+     * @param listener listener
+     * @since 17.1.0
+     */
+    public void removeReloadListener(@NotNull ReloadListener listener) {
+        for (Versioned source : sources) {
+            source.removeReloadListener(listener);
+        }
+    }
+
+    /**
+     * Returns statistics of the per-date result cache
+     *
+     * @return cache statistics, all zero if the cache is not enabled
+     * @see BusinessCalendarBuilder#cache(int)
+     * @since 17.1.0
+     */
+    @NotNull
+    public CacheStats getCacheStats() {
+        return cache != null ? cache.stats() : new CacheStats(0, 0, 0, 0);
     }
 
     /**
@@ -297,8 +673,16 @@ public final class BusinessCalendar {
      */
     @NotNull
     public LocalDate lastBusinessDay(@NotNull LocalDate date) {
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.LAST_BUSINESS_DAY, () -> lastBusinessDay0(date));
+        }
+        return lastBusinessDay0(date);
+    }
+
+    @NotNull
+    private LocalDate lastBusinessDay0(@NotNull LocalDate date) {
         LocalDate check = date;
-        while (isHoliday(check)) {
+        while (holiday(check)) {
             check = check.minusDays(1);
         }
         return check;
@@ -323,8 +707,16 @@ public final class BusinessCalendar {
      */
     @NotNull
     public LocalDate firstBusinessDay(@NotNull LocalDate date) {
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.FIRST_BUSINESS_DAY, () -> firstBusinessDay0(date));
+        }
+        return firstBusinessDay0(date);
+    }
+
+    @NotNull
+    private LocalDate firstBusinessDay0(@NotNull LocalDate date) {
         LocalDate check = date;
-        while (isHoliday(check)) {
+        while (holiday(check)) {
             check = check.plusDays(1);
         }
         return check;
@@ -349,14 +741,26 @@ public final class BusinessCalendar {
      */
     @NotNull
     public Holiday lastHoliday(@NotNull LocalDate date) {
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.LAST_HOLIDAY, () -> lastHoliday0(date));
+        }
+        return lastHoliday0(date);
+    }
+
+    @NotNull
+    private Holiday lastHoliday0(@NotNull LocalDate date) {
+        final ScanEvent event = new ScanEvent();
+        event.begin();
         LocalDate check = date;
-        while (!isHoliday(check)) {
+        while (!holiday(check)) {
             if (check.equals(LocalDate.MIN)) {
+                event.commit("lastHoliday", date, check);
                 return new Holiday(LocalDate.MIN, "min");
             }
             check = check.minusDays(1);
         }
-        return Objects.requireNonNull(getHoliday(check));
+        event.commit("lastHoliday", date, check);
+        return Objects.requireNonNull(holidayOf(check));
     }
 
     /**
@@ -378,14 +782,26 @@ public final class BusinessCalendar {
      */
     @NotNull
     public Holiday firstHoliday(@NotNull LocalDate date) {
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.FIRST_HOLIDAY, () -> firstHoliday0(date));
+        }
+        return firstHoliday0(date);
+    }
+
+    @NotNull
+    private Holiday firstHoliday0(@NotNull LocalDate date) {
+        final ScanEvent event = new ScanEvent();
+        event.begin();
         LocalDate check = date;
-        while (!isHoliday(check)) {
+        while (!holiday(check)) {
             if (check.equals(LocalDate.MAX)) {
+                event.commit("firstHoliday", date, check);
                 return new Holiday(LocalDate.MAX, "max");
             }
             check = check.plusDays(1);
         }
-        return Objects.requireNonNull(getHoliday(check));
+        event.commit("firstHoliday", date, check);
+        return Objects.requireNonNull(holidayOf(check));
     }
 
     /**
@@ -407,16 +823,27 @@ public final class BusinessCalendar {
      */
     @NotNull
     public List<Holiday> getHolidaysBetween(@NotNull LocalDate from, @NotNull LocalDate to) {
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.GET_HOLIDAYS_BETWEEN, () -> holidaysBetween(from, to));
+        }
+        return holidaysBetween(from, to);
+    }
+
+    @NotNull
+    private List<Holiday> holidaysBetween(@NotNull LocalDate from, @NotNull LocalDate to) {
+        final ScanEvent event = new ScanEvent();
+        event.begin();
         List<Holiday> list = new ArrayList<>();
         LocalDate start = from.isBefore(to) ? from : to;
         LocalDate end = (to.isAfter(from) ? to : from).plusDays(1);
         while (start.isBefore(end)) {
-            final Holiday holiday = getHoliday(start);
+            final Holiday holiday = holidayOf(start);
             if (holiday != null) {
                 list.add(holiday);
             }
             start = start.plusDays(1);
         }
+        event.commit("getHolidaysBetween", from, to);
         return list;
     }
 
@@ -430,18 +857,170 @@ public final class BusinessCalendar {
      */
     @NotNull
     public List<LocalDate> getBusinessDaysBetween(@NotNull LocalDate from, @NotNull LocalDate to) {
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.GET_BUSINESS_DAYS_BETWEEN, () -> businessDaysBetween(from, to));
+        }
+        return businessDaysBetween(from, to);
+    }
+
+    @NotNull
+    private List<LocalDate> businessDaysBetween(@NotNull LocalDate from, @NotNull LocalDate to) {
+        final ScanEvent event = new ScanEvent();
+        event.begin();
         List<LocalDate> list = new ArrayList<>();
         LocalDate start = from.isBefore(to) ? from : to;
         LocalDate end = (to.isAfter(from) ? to : from).plusDays(1);
         while (start.isBefore(end)) {
-            if (isBusinessDay(start)) {
+            if (!holiday(start)) {
                 list.add(start);
             }
             start = start.plusDays(1);
         }
+        event.commit("getBusinessDaysBetween", from, to);
         return list;
     }
 
+    /**
+     * Closes on the date, regardless of the rules and CSV configurations, until {@link #clearOverride(LocalDate)}.
+     * Visible to the queries on this calendar and its views right away, and appended to the journal specified by
+     * {@link BusinessCalendarBuilder#overlayJournal(Path)}.
+     *
+     * @param date date
+     * @param name holiday name
+     * @throws UncheckedIOException failed to append to the journal. the calendar is left unchanged
+     * @since 17.1.0
+     */
+    public void addHoliday(@NotNull LocalDate date, @NotNull String name) {
+        overlay.set(date, Overlay.Entry.holiday(name));
+    }
+
+    /**
+     * Opens on the date with the business hours given by the rules, regardless of the holidays given by the rules and
+     * CSV configurations, until {@link #clearOverride(LocalDate)}.
+     *
+     * @param date date
+     * @throws UncheckedIOException failed to append to the journal. the calendar is left unchanged
+     * @see #addHoliday(LocalDate, String)
+     * @since 17.1.0
+     */
+    public void removeHoliday(@NotNull LocalDate date) {
+        overlay.set(date, Overlay.Entry.open());
+    }
+
+    /**
+     * Opens on the date with the business hours, regardless of the rules and CSV configurations, until
+     * {@link #clearOverride(LocalDate)}.
+     *
+     * @param date          date
+     * @param businessHours business hours like "10-15"
+     * @throws IllegalArgumentException malformed business hours
+     * @throws UncheckedIOException     failed to append to the journal. the calendar is left unchanged
+     * @see #addHoliday(LocalDate, String)
+     * @since 17.1.0
+     */
+    public void overrideHours(@NotNull LocalDate date, @NotNull String businessHours) {
+        overlay.set(date, Overlay.Entry.hours(BusinessHoursParser.parse(businessHours)));
+    }
+
+    /**
+     * Follows the rules and CSV configurations on the date again
+     *
+     * @param date date
+     * @throws UncheckedIOException failed to append to the journal. the calendar is left unchanged
+     * @see #addHoliday(LocalDate, String)
+     * @since 17.1.0
+     */
+    public void clearOverride(@NotNull LocalDate date) {
+        overlay.set(date, null);
+    }
+
+    /**
+     * Returns the number of business days between specified period.<br>
+     * With {@link BusinessCalendarBuilder#gregorianCycle()}, the count is computed from the compiled cycle in constant
+     * time. With {@link BusinessCalendarBuilder#closedForm(int, int)}, the count is computed arithmetically from the
+     * weekly pattern and the exceptions in the horizon, in logarithmic time regardless of the span. Otherwise every
+     * date is tested.
+     *
+     * @param from from date (inclusive)
+     * @param to   to date (inclusive)
+     * @return number of business days between the specified period
+     * @since 17.1.0
+     */
+    public long countBusinessDays(@NotNull LocalDate from, @NotNull LocalDate to) {
+        if (instrumented) {
+            return timed(BusinessCalendarMetrics.Query.COUNT_BUSINESS_DAYS, () -> countBusinessDays0(from, to));
+        }
+        return countBusinessDays0(from, to);
+    }
+
+    private long countBusinessDays0(@NotNull LocalDate from, @NotNull LocalDate to) {
+        final LocalDate start = from.isBefore(to) ? from : to;
+        final LocalDate end = to.isAfter(from) ? to : from;
+        if (cycle != null) {
+            return cycle.countBusinessDays(start.toEpochDay(), end.toEpochDay())
+                    + overridden(start, end, epochDay -> cycle.countBusinessDays(epochDay, epochDay) == 0);
+        }
+        if (closure != null) {
+            final WeeklyClosure current = closure();
+            return current.count(start.toEpochDay(), end.toEpochDay())
+                    + overridden(start, end, epochDay -> current.count(epochDay, epochDay) == 0);
+        }
+        final ScanEvent event = new ScanEvent();
+        event.begin();
+        long count = 0;
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            if (!holiday(date)) {
+                count++;
+            }
+        }
+        event.commit("countBusinessDays", from, to);
+        return count;
+    }
+
+    /**
+     * @param counted tests if the count being corrected took the epoch day as a holiday
+     * @return business days gained by the holidays and business days set at runtime in the range, compared to the count
+     */
+    private long overridden(@NotNull LocalDate start, @NotNull LocalDate end, @NotNull LongPredicate counted) {
+        if (overlay.isEmpty()) {
+            return 0;
+        }
+        long count = 0;
+        for (Map.Entry<LocalDate, Overlay.Entry> entry : overlay.entries(start, end).entrySet()) {
+            final boolean countedHoliday = counted.test(entry.getKey().toEpochDay());
+            final boolean holiday = entry.getValue().holidayKey() != null;
+            count += countedHoliday == holiday ? 0 : holiday ? -1 : 1;
+        }
+        return count;
+    }
+
+    /**
+     * @return closed form, derived again if a CSV configuration or the Japanese holiday data has been reloaded
+     */
+    @NotNull
+    private WeeklyClosure closure() {
+        //noinspection ConstantConditions
+        WeeklyClosure current = closure.get();
+        final Versioned[] versioned = sources.toArray(new Versioned[0]);
+        if (Versioned.changed(versioned, current.versions())) {
+            synchronized (closure) {
+                current = closure.get();
+                if (Versioned.changed(versioned, current.versions())) {
+                    current = compileClosure();
+                    closure.set(current);
+                }
+            }
+        }
+        return current;
+    }
+
+    @NotNull
+    private WeeklyClosure compileClosure() {
+        // versions are taken first, so that a reload during the compilation leads to another compilation
+        final long[] versions = Versioned.versions(sources.toArray(new Versioned[0]));
+        return WeeklyClosure.of(closureFrom, closureTo, date -> ruleHolidayKey(date) != null, versions);
+    }
+
     /**
      * Dump holidays and business days in the specified period
      *
@@ -470,10 +1049,10 @@ public final class BusinessCalendar {
         LocalDate start = from.isBefore(to) ? from : to;
         LocalDate end = (to.isAfter(from) ? to : from).plusDays(1);
         while (start.isBefore(end)) {
-            if (isBusinessDay(start)) {
+            if (!holiday(start)) {
                 buf.append(start.format(dateFormatter)).append(" : ");
                 boolean first = true;
-                for (BusinessHourSlot slot : getBusinessHourSlots(start)) {
+                for (BusinessHourSlot slot : slots(start)) {
                     if (!first) {
                         buf.append(", ");
                     }
@@ -481,7 +1060,7 @@ public final class BusinessCalendar {
                     buf.append(formatTime(slot.from())).append("-").append(formatTime(slot.to()));
                 }
             } else {
-                buf.append("%s : %s".formatted(start.format(dateFormatter), Objects.requireNonNull(getHoliday(start)).name()));
+                buf.append("%s : %s".formatted(start.format(dateFormatter), Objects.requireNonNull(holidayOf(start)).name()));
             }
             buf.append("\n");
             start = start.plusDays(1);
@@ -23,21 +23,83 @@ import java.nio.file.Path;
 import java.time.DayOfWeek;
 import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * business calendar builder
  */
 public final class BusinessCalendarBuilder {
+    private static final Logger logger = Logger.getLogger();
     private boolean built = false;
     final List<Function<LocalDate, String>> holidayLogics = new ArrayList<>();
-    private final HolidayMap customHolidayMap = new HolidayMap();
+    private final HolidayMap customHolidayMap = HolidayMap.EMPTY;
     Locale locale = Locale.getDefault();
     final List<Function<LocalDate, List<BusinessHourSlot>>> businessHours = new ArrayList<>();
+    BusinessCalendarMetrics metrics = BusinessCalendarMetrics.NOOP;
+    /**
+     * counts the rules evaluated by the calendar, null unless metrics are specified
+     */
+    @Nullable
+    RuleCounter ruleCounter;
+    int cacheSize = 0;
+    int indexFromYear = 0;
+    int indexToYear = -1;
+    boolean offHeap = false;
+    int closedFormFromYear = 0;
+    int closedFormToYear = -1;
+    boolean gregorianCycle = false;
+    @Nullable
+    Path overlayJournal;
+    /**
+     * true while every holiday logic repeats every 400 years
+     */
+    private boolean periodic = true;
+    @NotNull
+    private String notPeriodic = "";
+    @Nullable
+    private LocalDate prewarmFrom;
+    @Nullable
+    private LocalDate prewarmTo;
+    final List<Versioned> sources = new ArrayList<>();
+    /**
+     * CSV configurations specified by path or URL, loaded on build
+     */
+    private final List<PendingCsv> pendingCsvs = new ArrayList<>();
+
+    /**
+     * CSV configuration loaded on build, so that {@link #buildAsync()} loads it off the calling thread. Its rules take
+     * the positions of the csv() call, which hold null until loaded.
+     */
+    private record PendingCsv(@NotNull Supplier<CsvConfiguration> loader, @Nullable Duration reloadInterval,
+                              int holidayIndex, int hoursIndex, int sourceIndex) {
+    }
+
+    /**
+     * executor of {@link #buildAsync()} and {@link BusinessCalendar#prewarmAsync(LocalDate, LocalDate)}, created on
+     * first use
+     */
+    static final class DefaultExecutor {
+        private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        static final ThreadPoolExecutor INSTANCE = new ThreadPoolExecutor(THREADS, THREADS,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "BusinessCalendar build");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            INSTANCE.allowCoreThreadTimeOut(true);
+        }
+    }
 
 
     /**
@@ -53,8 +115,44 @@ public final class BusinessCalendarBuilder {
     }
 
     Function<LocalDate, String> holiday() {
-        return date -> holidayLogics.stream()
-                .map(e -> e.apply(date)).filter(Objects::nonNull).findFirst().orElse(null);
+        final RuleCounter counter = ruleCounter;
+        if (counter == null) {
+            return date -> {
+                for (Function<LocalDate, String> holidayLogic : holidayLogics) {
+                    final String holiday = holidayLogic.apply(date);
+                    if (holiday != null) {
+                        return holiday;
+                    }
+                }
+                return null;
+            };
+        }
+        return date -> {
+            for (Function<LocalDate, String> holidayLogic : holidayLogics) {
+                counter.increment();
+                final String holiday = holidayLogic.apply(date);
+                if (holiday != null) {
+                    return holiday;
+                }
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Specify metrics to be notified of queries and CSV configuration reloads.<br>
+     * Call this method before csv() to instrument the CSV configurations.
+     *
+     * @param metrics metrics
+     * @return builder
+     * @since 17.1.0
+     */
+    @NotNull
+    public BusinessCalendarBuilder metrics(@NotNull BusinessCalendarMetrics metrics) {
+        ensureNotBuilt();
+        this.metrics = metrics;
+        this.ruleCounter = metrics == BusinessCalendarMetrics.NOOP ? null : new RuleCounter();
+        return this;
     }
 
     /**
@@ -67,6 +165,180 @@ public final class BusinessCalendarBuilder {
     public final BusinessCalendarBuilder holiday(Function<LocalDate, String>... logics) {
         ensureNotBuilt();
         Collections.addAll(holidayLogics, logics);
+        for (Function<LocalDate, String> logic : logics) {
+            if (logic instanceof Versioned versioned) {
+                sources.add(versioned);
+            }
+            if (logic != BusinessCalendar.CLOSED_ON_SATURDAYS_AND_SUNDAYS && !UnitedStates.getInstance().defines(logic)) {
+                notPeriodic("holiday(Function)");
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param logic    holiday logic
+     * @param periodic true if the logic repeats every 400 years
+     * @return builder
+     */
+    @NotNull
+    BusinessCalendarBuilder holiday(@NotNull Function<LocalDate, String> logic, boolean periodic) {
+        ensureNotBuilt();
+        holidayLogics.add(logic);
+        if (!periodic) {
+            notPeriodic("on(date) or on(Predicate)");
+        }
+        return this;
+    }
+
+    private void notPeriodic(@NotNull String logic) {
+        if (periodic) {
+            periodic = false;
+            notPeriodic = logic;
+        }
+    }
+
+    /**
+     * Cache holiday and business hours results of up to maximumSize dates.<br>
+     * Useful for calendars with rules which are expensive to evaluate, like arbitrary predicates. Cached results of the
+     * dates changed by a reload of a CSV configuration or the Japanese holiday data are discarded.
+     * Holiday logics must return the same result for the same date, as long as no CSV is reloaded.
+     *
+     * @param maximumSize maximum number of dates to be cached
+     * @return builder
+     * @see BusinessCalendar#getCacheStats()
+     * @since 17.1.0
+     */
+    @NotNull
+    public BusinessCalendarBuilder cache(int maximumSize) {
+        ensureNotBuilt();
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize should be greater than 0, provided: " + maximumSize);
+        }
+        this.cacheSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * Precompile holidays and business hours of every day from fromYear to toYear when the calendar is built.<br>
+     * Queries in the range look up the index instead of evaluating the rules. When a CSV configuration or the
+     * Japanese holiday data is reloaded, the dates changed by the reload are recompiled on the next query.
+     * Holiday logics must return the same result for the same date, as long as no CSV is reloaded.
+     *
+     * @param fromYear first year to be indexed
+     * @param toYear   last year to be indexed
+     * @return builder
+     * @see #offHeap()
+     * @since 17.1.0
+     */
+    @NotNull
+    public BusinessCalendarBuilder index(int fromYear, int toYear) {
+        ensureNotBuilt();
+        if (toYear < fromYear) {
+            throw new IllegalArgumentException("toYear should be equal to or greater than fromYear, provided: " + fromYear + "-" + toYear);
+        }
+        this.indexFromYear = fromYear;
+        this.indexToYear = toYear;
+        return this;
+    }
+
+    /**
+     * Count business days in closed form with {@link BusinessCalendar#countBusinessDays(LocalDate, LocalDate)}: a
+     * weekly pattern of closed weekdays, plus the exceptions to the pattern from fromYear to toYear, both derived from
+     * the holidays when the calendar is built, and again after a CSV configuration or the Japanese holiday data is
+     * reloaded. The cost of counting is logarithmic in the number of exceptions, regardless of the span.<br>
+     * A weekday is closed if it's a holiday on more than half of its occurrences in the range. Dates outside the range
+     * are counted as if they followed the weekly pattern, which suits ranges spanning centuries where holidays are
+     * only known for some years.
+     *
+     * @param fromYear first year whose exceptions are counted
+     * @param toYear   last year whose exceptions are counted
+     * @return builder
+     * @since 17.1.0
+     */
+    @NotNull
+    public BusinessCalendarBuilder closedForm(int fromYear, int toYear) {
+        ensureNotBuilt();
+        if (toYear < fromYear) {
+            throw new IllegalArgumentException("toYear should be equal to or greater than fromYear, provided: " + fromYear + "-" + toYear);
+        }
+        this.closedFormFromYear = fromYear;
+        this.closedFormToYear = toYear;
+        return this;
+    }
+
+    /**
+     * Compile the holidays of one 400-year Gregorian cycle when the calendar is built, and answer
+     * {@link BusinessCalendar#isHoliday(LocalDate)}, {@link BusinessCalendar#getHoliday(LocalDate)} and
+     * {@link BusinessCalendar#countBusinessDays(LocalDate, LocalDate)} for any date from the cycle, in constant time.<br>
+     * Rules on days of week, months and days of month, and the predefined holidays in the United States give the same
+     * results every 400 years, which are 146,097 days or exactly 20,871 weeks. Calendars with rules on specific dates,
+     * arbitrary predicates or functions, CSV configurations, or the Japanese holiday data can't be compiled.
+     *
+     * @return builder
+     * @since 17.1.0
+     */
+    @NotNull
+    public BusinessCalendarBuilder gregorianCycle() {
+        ensureNotBuilt();
+        this.gregorianCycle = true;
+        return this;
+    }
+
+    /**
+     * Persist the holidays and business hours set at runtime with {@link BusinessCalendar#addHoliday(LocalDate, String)},
+     * {@link BusinessCalendar#removeHoliday(LocalDate)}, {@link BusinessCalendar#overrideHours(LocalDate, String)} and
+     * {@link BusinessCalendar#clearOverride(LocalDate)} to the journal. Each update is appended and synced to the file
+     * before it's visible. An existing journal is replayed, and compacted to one line per date, when the calendar is
+     * built.
+     *
+     * @param journal journal file
+     * @return builder
+     * @since 17.1.0
+     */
+    @NotNull
+    public BusinessCalendarBuilder overlayJournal(@NotNull Path journal) {
+        ensureNotBuilt();
+        this.overlayJournal = journal;
+        return this;
+    }
+
+    /**
+     * Store the index outside the Java heap, in direct byte buffers, so that it's not scanned by the garbage collector.
+     * Requires {@link #index(int, int)}.<br>
+     * The buffers are freed by the garbage collector once the calendar is unreachable, like the rest of the calendar.
+     * {@link BusinessCalendar#close()} makes the calendar unusable and stops accounting the index right away, but
+     * doesn't free the memory sooner.
+     *
+     * @return builder
+     * @since 17.1.0
+     */
+    @NotNull
+    public BusinessCalendarBuilder offHeap() {
+        ensureNotBuilt();
+        this.offHeap = true;
+        return this;
+    }
+
+    /**
+     * Prewarm the calendar from from to to when it's built, so that the first queries in the range don't pay the cost
+     * of compiling. The time taken and memory used are logged. Prewarming runs on the thread building the calendar,
+     * which is a pool thread with {@link #buildAsync()}.
+     *
+     * @param from first date, inclusive
+     * @param to   last date, inclusive
+     * @return builder
+     * @see BusinessCalendar#prewarm(LocalDate, LocalDate)
+     * @since 17.1.0
+     */
+    @NotNull
+    public BusinessCalendarBuilder prewarm(@NotNull LocalDate from, @NotNull LocalDate to) {
+        ensureNotBuilt();
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to should be equal to or after from, provided: " + from + "-" + to);
+        }
+        this.prewarmFrom = from;
+        this.prewarmTo = to;
         return this;
     }
 
@@ -76,9 +348,66 @@ public final class BusinessCalendarBuilder {
      */
     @NotNull
     public BusinessCalendar build() {
+        startBuild();
+        return completeBuild();
+    }
+
+    /**
+     * Build BusinessCalendar instance asynchronously. CSV configurations specified by path or URL are loaded, and the
+     * index is compiled, on a shared pool of daemon threads.
+     *
+     * @return future completed with the BusinessCalendar instance
+     * @throws IllegalStateException already built, or the configuration is invalid
+     * @since 17.1.0
+     */
+    @NotNull
+    public CompletableFuture<BusinessCalendar> buildAsync() {
+        return buildAsync(DefaultExecutor.INSTANCE);
+    }
+
+    /**
+     * Build BusinessCalendar instance asynchronously. CSV configurations specified by path or URL are loaded, and the
+     * index is compiled, on the executor.
+     *
+     * @param executor executor
+     * @return future completed with the BusinessCalendar instance
+     * @throws IllegalStateException already built, or the configuration is invalid
+     * @since 17.1.0
+     */
+    @NotNull
+    public CompletableFuture<BusinessCalendar> buildAsync(@NotNull Executor executor) {
+        startBuild();
+        return CompletableFuture.supplyAsync(this::completeBuild, executor);
+    }
+
+    private void startBuild() {
         ensureNotBuilt();
+        if (offHeap && indexToYear < indexFromYear) {
+            throw new IllegalStateException("offHeap() requires index(fromYear, toYear)");
+        }
+        if (gregorianCycle && !periodic) {
+            throw new IllegalStateException("gregorianCycle() requires rules repeating every 400 years, but " + notPeriodic + " was specified");
+        }
         built = true;
-        return new BusinessCalendar(this);
+    }
+
+    @NotNull
+    private BusinessCalendar completeBuild() {
+        for (PendingCsv pending : pendingCsvs) {
+            final CsvConfiguration csv = pending.loader.get();
+            csv.scheduleReload(pending.reloadInterval);
+            sources.set(pending.sourceIndex, csv);
+            holidayLogics.set(pending.holidayIndex, csv.holiday(ruleCounter));
+            businessHours.set(pending.hoursIndex, csv.getBusinessHours(ruleCounter));
+        }
+        pendingCsvs.clear();
+        final BusinessCalendar calendar = new BusinessCalendar(this);
+        if (prewarmFrom != null && prewarmTo != null) {
+            final PrewarmStats stats = calendar.prewarm(prewarmFrom, prewarmTo);
+            logger.info(() -> "prewarmed " + stats.days() + " days in " + stats.elapsed().toMillis() + "ms, allocated "
+                    + stats.allocatedBytes() + " bytes, estimated footprint " + stats.estimatedBytes() + " bytes");
+        }
+        return calendar;
     }
 
     /**
@@ -148,7 +477,7 @@ public final class BusinessCalendarBuilder {
     @NotNull
     public BusinessCalendarPredicate on(int month, int day) {
         ensureNotBuilt();
-        return new BusinessCalendarPredicate(e -> e.getMonthValue() == month && e.getDayOfMonth() == day, this);
+        return new BusinessCalendarPredicate(e -> e.getMonthValue() == month && e.getDayOfMonth() == day, this, true);
     }
 
     /**
@@ -165,8 +494,21 @@ public final class BusinessCalendarBuilder {
 
     @NotNull
     Function<LocalDate, List<BusinessHourSlot>> getBusinessHours() {
+        final RuleCounter counter = ruleCounter;
+        if (counter == null) {
+            return (date) -> {
+                for (Function<LocalDate, List<BusinessHourSlot>> bh : businessHours) {
+                    final List<BusinessHourSlot> apply = bh.apply(date);
+                    if (apply != null) {
+                        return apply;
+                    }
+                }
+                return null;
+            };
+        }
         return (date) -> {
             for (Function<LocalDate, List<BusinessHourSlot>> bh : businessHours) {
+                counter.increment();
                 final List<BusinessHourSlot> apply = bh.apply(date);
                 if (apply != null) {
                     return apply;
@@ -183,7 +525,7 @@ public final class BusinessCalendarBuilder {
     }
 
     /**
-     * Read CSV configuration file
+     * Read CSV configuration file. The file is read when the calendar is built.
      *
      * @param path csv file path
      * @return this instance
@@ -195,7 +537,7 @@ public final class BusinessCalendarBuilder {
     }
 
     /**
-     * Read CSV configuration file
+     * Read CSV configuration file. The file is read when the calendar is built.
      *
      * @param path           csv file path
      * @param reloadInterval reload interval
@@ -203,15 +545,12 @@ public final class BusinessCalendarBuilder {
      * @since 1.15
      */
     public BusinessCalendarBuilder csv(@NotNull Path path, @Nullable Duration reloadInterval) {
-        CsvConfiguration csv = CsvConfiguration.getInstance(path);
-        csv.scheduleReload(reloadInterval);
-        this.holidayLogics.add(csv.holiday());
-        this.businessHours.add(csv.getBusinessHours());
-        return this;
+        final BusinessCalendarMetrics metrics = this.metrics;
+        return pendingCsv(() -> CsvConfiguration.getInstance(path, metrics), reloadInterval);
     }
 
     /**
-     * Read CSV configuration from URL
+     * Read CSV configuration from URL. The configuration is fetched when the calendar is built.
      *
      * @param url csv url
      * @return this instance
@@ -223,7 +562,7 @@ public final class BusinessCalendarBuilder {
     }
 
     /**
-     * Read CSV configuration from URL
+     * Read CSV configuration from URL. The configuration is fetched when the calendar is built.
      *
      * @param url            csv url
      * @param reloadInterval reload interval
@@ -231,10 +570,17 @@ public final class BusinessCalendarBuilder {
      * @since 1.17
      */
     public BusinessCalendarBuilder csv(URL url, @Nullable Duration reloadInterval) {
-        CsvConfiguration csv = CsvConfiguration.getInstance(url);
-        this.holidayLogics.add(csv.holiday());
-        this.businessHours.add(csv.getBusinessHours());
-        csv.scheduleReload(reloadInterval);
+        final BusinessCalendarMetrics metrics = this.metrics;
+        return pendingCsv(() -> CsvConfiguration.getInstance(url, metrics), reloadInterval);
+    }
+
+    @NotNull
+    private BusinessCalendarBuilder pendingCsv(@NotNull Supplier<CsvConfiguration> loader, @Nullable Duration reloadInterval) {
+        notPeriodic("csv()");
+        pendingCsvs.add(new PendingCsv(loader, reloadInterval, holidayLogics.size(), businessHours.size(), sources.size()));
+        this.sources.add(null);
+        this.holidayLogics.add(null);
+        this.businessHours.add(null);
         return this;
     }
 
@@ -259,28 +605,36 @@ public final class BusinessCalendarBuilder {
      * @since 1.18
      */
     public BusinessCalendarBuilder csv(CsvConfiguration csv, @Nullable Duration reloadInterval) {
-        this.holidayLogics.add(csv.holiday());
-        this.businessHours.add(csv.getBusinessHours());
+        if (metrics != BusinessCalendarMetrics.NOOP) {
+            csv.metrics(metrics);
+        }
+        notPeriodic("csv()");
+        this.sources.add(csv);
+        this.holidayLogics.add(csv.holiday(ruleCounter));
+        this.businessHours.add(csv.getBusinessHours(ruleCounter));
         csv.scheduleReload(reloadInterval);
         return this;
     }
 
     static class BusinessHours implements Function<LocalDate, List<BusinessHourSlot>> {
         private final Predicate<LocalDate> predicate;
-        private final List<BusinessHourFromTo> businessHourFromTos = new ArrayList<>();
+        private final List<BusinessHourFromTo> businessHourFromTos;
 
         public BusinessHours(Predicate<LocalDate> predicate, String businessHour) {
+            this(predicate, parse(businessHour));
+        }
+
+        BusinessHours(Predicate<LocalDate> predicate, List<BusinessHourFromTo> businessHourFromTos) {
             this.predicate = predicate;
-            final String[] slots = businessHour.replaceAll(" ", "").replaceAll("[、&]", ",").split(",");
-
-            for (String slot : slots) {
-                final String[] split = slot.replaceAll("(to|から|〜|~)", "-").split("-");
-                final LocalTime from = toLocalTime(split[0]);
-                final LocalTime to = toLocalTime(split[1]);
-                checkParameter(from.isBefore(to) || to.equals(LocalTime.of(0, 0)), "from should be before to, provided: " + slot);
-                businessHourFromTos.add(new BusinessHourFromTo(from, to));
-            }
-            businessHourFromTos.sort(Comparator.comparing(BusinessHourFromTo::from));
+            this.businessHourFromTos = businessHourFromTos;
+        }
+
+        /**
+         * @param businessHour business hour as string
+         * @return business hours sorted by start time
+         */
+        static List<BusinessHourFromTo> parse(String businessHour) {
+            return BusinessHoursParser.parse(businessHour);
         }
 
         @Override
@@ -293,58 +647,5 @@ public final class BusinessCalendarBuilder {
             }
         }
 
-        private LocalTime toLocalTime(String timeStr) {
-            final String ampm = timeStr.replaceAll("[0-9.:時半]", "").toLowerCase();
-            final boolean half = timeStr.contains("半");
-            timeStr = timeStr.replaceAll("[^0-9:]", "");
-            final String[] split = timeStr.split(":");
-
-            int hour = ampm.matches("(noon|正午)") ? 12 : Integer.parseInt(split[0]);
-            if (ampm.matches("(a|am|午前)") && hour == 12) {
-                hour = 0;
-            }
-            if (ampm.matches("(p|pm|午後)") && hour != 12) {
-                hour += 12;
-            }
-            if (ampm.matches("midnight")) {
-                hour = 24;
-            }
-
-            int minutes = 0;
-            if (2 <= split.length) {
-                minutes = Integer.parseInt(split[1]);
-            }
-            if (half) {
-                minutes = 30;
-            }
-            int seconds = 0;
-            if (3 <= split.length) {
-                seconds = Integer.parseInt(split[2]);
-            }
-            if (hour == 24 && minutes == 0 && seconds == 0) {
-                return LocalTime.of(0, 0);
-            }
-
-            checkParameter(0 <= hour, "hour should be greater than or equals to 0, provided: " + timeStr);
-            checkParameter(hour <= 24, "hour should be less than or equals to 24, provided: " + timeStr);
-
-            checkParameter(0 <= minutes, "minutes should be greater than or equals to 0, provided: " + timeStr);
-            checkParameter(minutes <= 59, "minutes should be less than 60, provided: " + timeStr);
-
-            checkParameter(0 <= seconds, "seconds should be greater than or equals to 0, provided: " + timeStr);
-            checkParameter(seconds <= 59, "seconds should be less than 60, provided: " + timeStr);
-
-            return LocalTime.of(hour, minutes, seconds);
-        }
-
-        void checkParameter(boolean expectedToBeTrue, @NotNull String message) {
-            if (!expectedToBeTrue) {
-                throw new IllegalArgumentException(message);
-            }
-        }
-
     }
 }
-
-record BusinessHourFromTo(@NotNull LocalTime from, @NotNull LocalTime to) {
-}
@@ -0,0 +1,149 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Instrumentation SPI for BusinessCalendar and CsvConfiguration.<br>
+ * Implementations are called on the query / reload thread and must be thread-safe and cheap.
+ * All methods are no-op by default.
+ *
+ * @see MetricsRecorder
+ * @since 17.1.0
+ */
+public interface BusinessCalendarMetrics {
+    /**
+     * No-op metrics. Calendars built without metrics skip instrumentation entirely.
+     */
+    BusinessCalendarMetrics NOOP = new BusinessCalendarMetrics() {
+    };
+
+    /**
+     * Instrumented BusinessCalendar methods
+     */
+    enum Query {
+        /**
+         * {@link BusinessCalendar#isHoliday(java.time.LocalDate)}
+         */
+        IS_HOLIDAY,
+        /**
+         * {@link BusinessCalendar#isBusinessDay(java.time.LocalDate)}
+         */
+        IS_BUSINESS_DAY,
+        /**
+         * {@link BusinessCalendar#isBusinessHour(java.time.LocalDateTime)}
+         */
+        IS_BUSINESS_HOUR,
+        /**
+         * {@link BusinessCalendar#getBusinessHourSlots(java.time.LocalDate)}
+         */
+        GET_BUSINESS_HOUR_SLOTS,
+        /**
+         * {@link BusinessCalendar#lastBusinessHourEnd(java.time.LocalDateTime)}
+         */
+        LAST_BUSINESS_HOUR_END,
+        /**
+         * {@link BusinessCalendar#nextBusinessHourEnd(java.time.LocalDateTime)}
+         */
+        NEXT_BUSINESS_HOUR_END,
+        /**
+         * {@link BusinessCalendar#lastBusinessHourStart(java.time.LocalDateTime)}
+         */
+        LAST_BUSINESS_HOUR_START,
+        /**
+         * {@link BusinessCalendar#nextBusinessHourStart(java.time.LocalDateTime)}
+         */
+        NEXT_BUSINESS_HOUR_START,
+        /**
+         * {@link BusinessCalendar#getHoliday(java.time.LocalDate)}
+         */
+        GET_HOLIDAY,
+        /**
+         * {@link BusinessCalendar#lastBusinessDay(java.time.LocalDate)}
+         */
+        LAST_BUSINESS_DAY,
+        /**
+         * {@link BusinessCalendar#firstBusinessDay(java.time.LocalDate)}
+         */
+        FIRST_BUSINESS_DAY,
+        /**
+         * {@link BusinessCalendar#lastHoliday(java.time.LocalDate)}
+         */
+        LAST_HOLIDAY,
+        /**
+         * {@link BusinessCalendar#firstHoliday(java.time.LocalDate)}
+         */
+        FIRST_HOLIDAY,
+        /**
+         * {@link BusinessCalendar#getHolidaysBetween(java.time.LocalDate, java.time.LocalDate)}
+         */
+        GET_HOLIDAYS_BETWEEN,
+        /**
+         * {@link BusinessCalendar#getBusinessDaysBetween(java.time.LocalDate, java.time.LocalDate)}
+         */
+        GET_BUSINESS_DAYS_BETWEEN,
+        /**
+         * {@link BusinessCalendar#countBusinessDays(java.time.LocalDate, java.time.LocalDate)}
+         */
+        COUNT_BUSINESS_DAYS
+    }
+
+    /**
+     * Caches and indexes which report hits and misses
+     */
+    enum Cache {
+        /**
+         * per-date result cache
+         */
+        RESULT,
+        /**
+         * compiled index
+         */
+        INDEX
+    }
+
+    /**
+     * Called when a query completed
+     *
+     * @param query          query
+     * @param nanos          elapsed time in nanoseconds
+     * @param rulesEvaluated number of holiday / business hours rules evaluated during the query
+     */
+    default void query(@NotNull Query query, long nanos, int rulesEvaluated) {
+    }
+
+    /**
+     * Called on a cache or index lookup
+     *
+     * @param cache cache
+     * @param hit   true if the lookup was a hit
+     */
+    default void cacheAccess(@NotNull Cache cache, boolean hit) {
+    }
+
+    /**
+     * Called when a configuration was (re)loaded
+     *
+     * @param source   path or URL of the configuration
+     * @param nanos    elapsed time in nanoseconds
+     * @param bytes    number of bytes read
+     * @param warnings number of warnings, like unparseable lines
+     * @param success  false if the configuration couldn't be read
+     */
+    default void reload(@NotNull String source, long nanos, long bytes, int warnings, boolean success) {
+    }
+}
@@ -29,10 +29,15 @@ import java.util.function.Predicate;
 public class BusinessCalendarPredicate {
     private final BusinessCalendarBuilder builder;
     private final Predicate<LocalDate> predicate;
+    /**
+     * true if the predicate repeats every 400 years, like rules on days of week, months and days of month
+     */
+    private final boolean periodic;
 
     BusinessCalendarPredicate(@NotNull BusinessCalendarBuilder builder, int ordinal, @NotNull DayOfWeek... dayOfWeeks) {
         this.predicate = predicate(ordinal, dayOfWeeks);
         this.builder = builder;
+        this.periodic = true;
     }
 
     BusinessCalendarPredicate(@NotNull BusinessCalendarBuilder builder, @NotNull DayOfWeek... dayOfWeeks) {
@@ -45,16 +50,23 @@ public class BusinessCalendarPredicate {
             return false;
         };
         this.builder = builder;
+        this.periodic = true;
     }
 
     BusinessCalendarPredicate(@NotNull Predicate<LocalDate> predicate, @NotNull BusinessCalendarBuilder builder) {
+        this(predicate, builder, false);
+    }
+
+    BusinessCalendarPredicate(@NotNull Predicate<LocalDate> predicate, @NotNull BusinessCalendarBuilder builder, boolean periodic) {
         this.predicate = predicate;
         this.builder = builder;
+        this.periodic = periodic;
     }
 
     BusinessCalendarPredicate(@NotNull LocalDate date, @NotNull BusinessCalendarBuilder builder) {
         this.predicate = e -> e.isEqual(date);
         this.builder = builder;
+        this.periodic = false;
     }
 
     /**
@@ -75,7 +87,7 @@ public class BusinessCalendarPredicate {
      */
     @NotNull
     public BusinessCalendarBuilder holiday(@NotNull String name) {
-        return builder.holiday(holiday(predicate, name));
+        return builder.holiday(holiday(predicate, name), periodic);
     }
 
     @NotNull
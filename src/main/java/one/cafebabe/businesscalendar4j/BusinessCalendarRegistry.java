@@ -0,0 +1,357 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Calendars of tenants, each configured with a CSV file named "&lt;tenant id&gt;.csv" in a directory.<br>
+ * A tenant's calendar is compiled on the first query, so that startup doesn't scale with the number of tenants.
+ * When the estimated footprint of the compiled calendars exceeds the memory budget, the least recently queried
+ * calendars are evicted, and compiled again on the next query. Evicted calendars are not closed, since another thread
+ * may still be querying them, and are garbage collected once unused. They're no longer reloaded though, so don't hold
+ * on to calendars returned by {@link #get(String)}, look them up on each use.<br>
+ * One watcher thread reloads the CSV files of compiled calendars when they're modified, and evicts the calendar of a
+ * tenant whose CSV file is deleted, so that {@link #get(String)} fails until the file is created again.
+ *
+ * @since 17.1.0
+ */
+public final class BusinessCalendarRegistry implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger();
+    private static final String SUFFIX = ".csv";
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9_\\-][A-Za-z0-9_.\\-]*");
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Supplier<BusinessCalendarBuilder> builder;
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final AtomicLong compiledBytes = new AtomicLong();
+    private final LongAdder evictions = new LongAdder();
+    private final WatchService watchService;
+
+    /**
+     * a tenant, whose calendar is compiled lazily
+     */
+    private final class Tenant {
+        private final String id;
+        @Nullable
+        private volatile BusinessCalendar calendar;
+        @Nullable
+        private CsvConfiguration csv;
+        private volatile long lastAccess;
+        private long bytes;
+
+        Tenant(@NotNull String id) {
+            this.id = id;
+        }
+
+        @NotNull
+        BusinessCalendar calendar() {
+            lastAccess = System.nanoTime();
+            BusinessCalendar calendar = this.calendar;
+            if (calendar == null) {
+                synchronized (this) {
+                    calendar = this.calendar;
+                    if (calendar == null) {
+                        calendar = compile();
+                    }
+                }
+                evictIfNeeded(this);
+            }
+            return calendar;
+        }
+
+        @NotNull
+        private BusinessCalendar compile() {
+            final CsvConfiguration csv = CsvConfiguration.getInstance(path(id));
+            final BusinessCalendar calendar = builder.get().csv(csv).build();
+            this.csv = csv;
+            this.bytes = calendar.estimatedBytes();
+            compiledBytes.addAndGet(bytes);
+            this.calendar = calendar;
+            return calendar;
+        }
+
+        synchronized void reload() {
+            if (csv != null) {
+                csv.reload();
+                final BusinessCalendar calendar = this.calendar;
+                if (calendar != null) {
+                    final long updated = calendar.estimatedBytes();
+                    compiledBytes.addAndGet(updated - bytes);
+                    bytes = updated;
+                }
+            }
+        }
+
+        synchronized boolean evict() {
+            final BusinessCalendar calendar = this.calendar;
+            if (calendar == null) {
+                return false;
+            }
+            this.calendar = null;
+            this.csv = null;
+            compiledBytes.addAndGet(-bytes);
+            bytes = 0;
+            // not closed: get() may have just returned it to another thread
+            return true;
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Creates a registry of calendars configured only with the CSV files
+     *
+     * @param directory directory containing "&lt;tenant id&gt;.csv" files
+     * @param maxBytes  memory budget of compiled calendars
+     * @return registry
+     * @throws UncheckedIOException failed to watch the directory
+     */
+    @NotNull
+    public static BusinessCalendarRegistry getInstance(@NotNull Path directory, long maxBytes) {
+        return getInstance(directory, maxBytes, BusinessCalendar::newBuilder);
+    }
+
+    /**
+     * Creates a registry of calendars built with builders from the supplier, configured with the CSV files
+     *
+     * @param directory directory containing "&lt;tenant id&gt;.csv" files
+     * @param maxBytes  memory budget of compiled calendars
+     * @param builder   supplies a new builder configured with rules common to all tenants, like public holidays
+     * @return registry
+     * @throws UncheckedIOException failed to watch the directory
+     */
+    @NotNull
+    public static BusinessCalendarRegistry getInstance(@NotNull Path directory, long maxBytes,
+                                                       @NotNull Supplier<BusinessCalendarBuilder> builder) {
+        return new BusinessCalendarRegistry(directory, maxBytes, builder);
+    }
+
+    private BusinessCalendarRegistry(@NotNull Path directory, long maxBytes,
+                                     @NotNull Supplier<BusinessCalendarBuilder> builder) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes should be greater than 0, provided: " + maxBytes);
+        }
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException(directory.toAbsolutePath() + " is not a directory");
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.builder = builder;
+        try {
+            this.watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to watch " + directory.toAbsolutePath(), e);
+        }
+        final Thread watcher = new Thread(this::watch, "BusinessCalendarRegistry " + directory.getFileName());
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @NotNull
+    private Path path(@NotNull String tenantId) {
+        return directory.resolve(tenantId + SUFFIX);
+    }
+
+    /**
+     * Returns the calendar of the tenant, compiling it on the first query
+     *
+     * @param tenantId tenant id, the file name of the CSV file without ".csv"
+     * @return calendar
+     * @throws IllegalArgumentException the tenant id is malformed or the CSV file doesn't exist
+     */
+    @NotNull
+    public BusinessCalendar get(@NotNull String tenantId) {
+        Tenant tenant = tenants.get(tenantId);
+        if (tenant == null) {
+            if (!TENANT_ID.matcher(tenantId).matches()) {
+                throw new IllegalArgumentException("malformed tenant id: " + tenantId);
+            }
+            if (!Files.exists(path(tenantId))) {
+                throw new IllegalArgumentException(path(tenantId).toAbsolutePath() + " does not exist");
+            }
+            tenant = tenants.computeIfAbsent(tenantId, Tenant::new);
+        }
+        return tenant.calendar();
+    }
+
+    /**
+     * @return ids of the tenants having a CSV file in the directory
+     */
+    @NotNull
+    public Set<String> getTenants() {
+        final Set<String> ids = new TreeSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path path : stream) {
+                final String fileName = path.getFileName().toString();
+                final String id = fileName.substring(0, fileName.length() - SUFFIX.length());
+                if (TENANT_ID.matcher(id).matches()) {
+                    ids.add(id);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ids;
+    }
+
+    /**
+     * @return number of compiled calendars
+     */
+    public int getCompiledCount() {
+        int count = 0;
+        for (Tenant tenant : tenants.values()) {
+            if (tenant.calendar != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return estimated bytes of all compiled calendars
+     */
+    public long getEstimatedBytes() {
+        return compiledBytes.get();
+    }
+
+    /**
+     * @param tenantId tenant id
+     * @return estimated bytes of the compiled calendar of the tenant, 0 if not compiled
+     */
+    public long getEstimatedBytes(@NotNull String tenantId) {
+        final Tenant tenant = tenants.get(tenantId);
+        return tenant == null ? 0 : tenant.bytes();
+    }
+
+    /**
+     * @return number of calendars evicted to keep the memory budget
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private void evictIfNeeded(@NotNull Tenant loaded) {
+        if (compiledBytes.get() <= maxBytes) {
+            return;
+        }
+        synchronized (this) {
+            final List<Tenant> candidates = new ArrayList<>();
+            for (Tenant tenant : tenants.values()) {
+                if (tenant != loaded && tenant.calendar != null) {
+                    candidates.add(tenant);
+                }
+            }
+            candidates.sort(Comparator.comparingLong(tenant -> tenant.lastAccess));
+            for (Tenant tenant : candidates) {
+                if (compiledBytes.get() <= maxBytes) {
+                    break;
+                }
+                if (tenant.evict()) {
+                    evictions.increment();
+                    logger.debug(() -> "evicted: " + tenant.id);
+                }
+            }
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                final WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        tenants.values().forEach(this::reload);
+                        continue;
+                    }
+                    final String fileName = event.context().toString();
+                    if (fileName.endsWith(SUFFIX)) {
+                        final String id = fileName.substring(0, fileName.length() - SUFFIX.length());
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                            remove(id);
+                        } else {
+                            final Tenant tenant = tenants.get(id);
+                            if (tenant != null) {
+                                reload(tenant);
+                            }
+                        }
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignore) {
+        }
+    }
+
+    private void reload(@NotNull Tenant tenant) {
+        try {
+            tenant.reload();
+        } catch (RuntimeException e) {
+            // keep watching the other tenants
+            logger.warn(() -> "failed to reload " + path(tenant.id).toAbsolutePath(), e);
+        }
+    }
+
+    private void remove(@NotNull String tenantId) {
+        final Tenant tenant = tenants.remove(tenantId);
+        if (tenant != null && tenant.evict()) {
+            logger.debug(() -> "removed: " + tenantId);
+        }
+    }
+
+    /**
+     * Stops watching the directory and evicts compiled calendars
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn(() -> "failed to close the watch service", e);
+        }
+        for (Tenant tenant : tenants.values()) {
+            tenant.evict();
+        }
+    }
+}
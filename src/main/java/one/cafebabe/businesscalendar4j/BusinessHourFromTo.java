@@ -0,0 +1,29 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.LocalTime;
+
+/**
+ * Business hours of a day, from and to. to is 00:00 when the business hours end at midnight.
+ *
+ * @param from start time
+ * @param to   end time
+ */
+record BusinessHourFromTo(@NotNull LocalTime from, @NotNull LocalTime to) {
+}
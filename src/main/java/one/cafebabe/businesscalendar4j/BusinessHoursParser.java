@@ -0,0 +1,211 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parses business hours like "9:00-12:00, 13:00-17:00", "10am to 3pm" or "午前9時〜午後5時半".<br>
+ * <pre>
+ * hours := slot ((',' | '、' | '&amp;') slot)*
+ * slot  := time ('-' | 'to' | 'から' | '〜' | '~') time
+ * time  := [hour[':' minute[':' second]]] [ampm] ['時'] ['半']   (ampm: a, am, p, pm, a.m., p.m., 午前, 午後, noon, 正午, midnight)
+ * </pre>
+ * Spaces are ignored. Parsed hours are cached process-wide by the string without spaces, since configurations
+ * tend to repeat the same few business hours.
+ */
+final class BusinessHoursParser {
+    /**
+     * upper bound of cached business hours
+     */
+    static final int MAX_CACHED = 4096;
+    private static final Map<String, List<BusinessHourFromTo>> cache = new ConcurrentHashMap<>();
+
+    private BusinessHoursParser() {
+    }
+
+    /**
+     * @param businessHour business hour as string
+     * @return immutable business hours sorted by start time
+     * @throws IllegalArgumentException malformed business hours
+     */
+    @NotNull
+    static List<BusinessHourFromTo> parse(@NotNull String businessHour) {
+        final String normalized = removeSpaces(businessHour);
+        final List<BusinessHourFromTo> cached = cache.get(normalized);
+        if (cached != null) {
+            return cached;
+        }
+        final List<BusinessHourFromTo> parsed = parseNormalized(normalized);
+        if (cache.size() < MAX_CACHED) {
+            cache.putIfAbsent(normalized, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Parses without looking up the cache
+     *
+     * @param businessHour business hour as string
+     * @return immutable business hours sorted by start time
+     * @throws IllegalArgumentException malformed business hours
+     */
+    @NotNull
+    static List<BusinessHourFromTo> parseUncached(@NotNull String businessHour) {
+        return parseNormalized(removeSpaces(businessHour));
+    }
+
+    @NotNull
+    private static String removeSpaces(@NotNull String str) {
+        return str.indexOf(' ') < 0 ? str : str.replace(" ", "");
+    }
+
+    @NotNull
+    private static List<BusinessHourFromTo> parseNormalized(@NotNull String hours) {
+        final List<String> slots = split(hours, false);
+        if (slots.isEmpty()) {
+            throw new IllegalArgumentException("business hours not specified");
+        }
+        final List<BusinessHourFromTo> businessHourFromTos = new ArrayList<>(slots.size());
+        for (String slot : slots) {
+            final List<String> fromTo = split(slot, true);
+            checkParameter(2 <= fromTo.size(), "unable to parse business hours: " + slot);
+            final LocalTime from = toLocalTime(fromTo.get(0));
+            final LocalTime to = toLocalTime(fromTo.get(1));
+            checkParameter(from.isBefore(to) || to.equals(LocalTime.of(0, 0)), "from should be before to, provided: " + slot);
+            businessHourFromTos.add(new BusinessHourFromTo(from, to));
+        }
+        businessHourFromTos.sort(Comparator.comparing(BusinessHourFromTo::from));
+        return List.copyOf(businessHourFromTos);
+    }
+
+    /**
+     * Splits slots, or from and to of a slot. Trailing empty elements are discarded like {@link String#split(String)}.
+     *
+     * @param str   string to be split
+     * @param range true to split from and to of a slot, false to split slots
+     * @return split elements
+     */
+    @NotNull
+    private static List<String> split(@NotNull String str, boolean range) {
+        final List<String> elements = new ArrayList<>(2);
+        int start = 0;
+        int i = 0;
+        while (i < str.length()) {
+            final char c = str.charAt(i);
+            int separator = 0;
+            if (range) {
+                if (c == '-' || c == '〜' || c == '~') {
+                    separator = 1;
+                } else if (str.startsWith("to", i) || str.startsWith("から", i)) {
+                    separator = 2;
+                }
+            } else if (c == ',' || c == '、' || c == '&') {
+                separator = 1;
+            }
+            if (separator != 0) {
+                elements.add(str.substring(start, i));
+                i += separator;
+                start = i;
+            } else {
+                i++;
+            }
+        }
+        elements.add(str.substring(start));
+        while (!elements.isEmpty() && elements.get(elements.size() - 1).isEmpty()) {
+            elements.remove(elements.size() - 1);
+        }
+        for (String element : elements) {
+            checkParameter(range || !element.isEmpty(), "unable to parse business hours: " + str);
+        }
+        return elements;
+    }
+
+    @NotNull
+    private static LocalTime toLocalTime(@NotNull String timeStr) {
+        final StringBuilder ampmBuilder = new StringBuilder();
+        // hour, minute and second. fields after the third are ignored
+        final int[] fields = new int[3];
+        int field = 0;
+        boolean digits = false;
+        boolean digitsInField = false;
+        boolean emptyField = false;
+        boolean half = false;
+        for (int i = 0; i < timeStr.length(); i++) {
+            final char c = timeStr.charAt(i);
+            if ('0' <= c && c <= '9') {
+                // empty fields are allowed only at the end, like "9:"
+                checkParameter(!emptyField, "unable to parse time: " + timeStr);
+                if (field < fields.length) {
+                    checkParameter(fields[field] < 100_000, "unable to parse time: " + timeStr);
+                    fields[field] = fields[field] * 10 + (c - '0');
+                }
+                digits = true;
+                digitsInField = true;
+            } else if (c == ':') {
+                emptyField |= !digitsInField;
+                digitsInField = false;
+                field++;
+            } else if (c == '半') {
+                half = true;
+            } else if (c != '.' && c != '時') {
+                ampmBuilder.append(c);
+            }
+        }
+        final String ampm = ampmBuilder.toString().toLowerCase(Locale.ENGLISH);
+        final boolean noon = ampm.equals("noon") || ampm.equals("正午");
+        checkParameter(noon || digits, "unable to parse time: " + timeStr);
+
+        int hour = noon ? 12 : fields[0];
+        if ((ampm.equals("a") || ampm.equals("am") || ampm.equals("午前")) && hour == 12) {
+            hour = 0;
+        }
+        if ((ampm.equals("p") || ampm.equals("pm") || ampm.equals("午後")) && hour != 12) {
+            hour += 12;
+        }
+        if (ampm.equals("midnight")) {
+            hour = 24;
+        }
+        int minutes = fields[1];
+        if (half) {
+            minutes = 30;
+        }
+        final int seconds = fields[2];
+        if (hour == 24 && minutes == 0 && seconds == 0) {
+            return LocalTime.of(0, 0);
+        }
+
+        checkParameter(hour <= 24, "hour should be less than or equals to 24, provided: " + timeStr);
+        checkParameter(hour < 24, "unable to parse time: " + timeStr);
+        checkParameter(minutes <= 59, "minutes should be less than 60, provided: " + timeStr);
+        checkParameter(seconds <= 59, "seconds should be less than 60, provided: " + timeStr);
+        return LocalTime.of(hour, minutes, seconds);
+    }
+
+    private static void checkParameter(boolean expectedToBeTrue, @NotNull String message) {
+        if (!expectedToBeTrue) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
@@ -16,57 +16,388 @@
 package one.cafebabe.businesscalendar4j;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.Charset;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
-class CSVHolidays extends HolidayMap {
+class CSVHolidays implements Function<LocalDate, String>, Versioned {
+    // no static Logger: this class is initialized at image build time, and Logger at run time
+    /* intentionally package private for the test purpose  */
+    volatile HolidayMap holidayMap = HolidayMap.EMPTY;
+    private final long interval;
     private final String resourceURL;
     private final String fallbackResource;
     private final String prefix;
     private final Charset charset;
+    @Nullable
+    private final HolidayDataCache cache;
+    /**
+     * holiday of a date with a given table, including the ones derived from the table
+     */
+    private final BiFunction<HolidayMap, LocalDate, String> resolver;
+    /**
+     * checksum of the local copy currently loaded, or null
+     */
+    @Nullable
+    private volatile String loadedSha256;
+    private volatile boolean refreshScheduled = false;
+    private volatile long version = 0;
+    private final ChangeLog changeLog = new ChangeLog();
+    private final ReloadListeners listeners = new ReloadListeners();
+    /**
+     * substitute holidays are derived from the holidays of up to a week before
+     */
+    private static final int DERIVED_DAYS = 7;
+
+    /**
+     * @param interval         reload interval in milliseconds
+     * @param resourceURL      remote resource
+     * @param fallbackResource bundled resource used until / unless the remote resource is available
+     * @param prefix           holiday name prefix
+     * @param charset          charset
+     * @param deferredFetch    true to initialize with the bundled resource and fetch the remote resource asynchronously on first use
+     */
+    CSVHolidays(long interval, @NotNull String resourceURL, @NotNull String fallbackResource, @NotNull String prefix,
+                @NotNull Charset charset, boolean deferredFetch) {
+        this(interval, resourceURL, fallbackResource, prefix, charset, deferredFetch, null);
+    }
+
+    /**
+     * @param interval         reload interval in milliseconds
+     * @param resourceURL      remote resource
+     * @param fallbackResource bundled resource used until / unless the remote resource is available
+     * @param prefix           holiday name prefix
+     * @param charset          charset
+     * @param deferredFetch    true to initialize with the bundled resource and fetch the remote resource asynchronously on first use
+     * @param cache            local copy of the remote resource, preferred to fetching while it's fresh, or null
+     */
+    CSVHolidays(long interval, @NotNull String resourceURL, @NotNull String fallbackResource, @NotNull String prefix,
+                @NotNull Charset charset, boolean deferredFetch, @Nullable HolidayDataCache cache) {
+        this(interval, resourceURL, fallbackResource, prefix, charset, deferredFetch, cache, HolidayMap::apply);
+    }
 
-    CSVHolidays(long interval, @NotNull String resourceURL, @NotNull String fallbackResource, @NotNull  String prefix,
-                @NotNull Charset charset) {
+    /**
+     * @param interval         reload interval in milliseconds
+     * @param resourceURL      remote resource
+     * @param fallbackResource bundled resource used until / unless the remote resource is available
+     * @param prefix           holiday name prefix
+     * @param charset          charset
+     * @param deferredFetch    true to initialize with the bundled resource and fetch the remote resource asynchronously on first use
+     * @param cache            local copy of the remote resource, preferred to fetching while it's fresh, or null
+     * @param resolver         holiday of a date with a given table, used to tell the dates whose holidays changed on reload
+     */
+    CSVHolidays(long interval, @NotNull String resourceURL, @NotNull String fallbackResource, @NotNull String prefix,
+                @NotNull Charset charset, boolean deferredFetch, @Nullable HolidayDataCache cache,
+                @NotNull BiFunction<HolidayMap, LocalDate, String> resolver) {
+        this.resolver = resolver;
+        this.interval = interval;
         this.resourceURL = resourceURL;
         this.fallbackResource = fallbackResource;
         this.prefix = prefix;
         this.charset = charset;
-        loadHolidays();
-        new Timer(true).schedule(new TimerTask() {
+        this.cache = imageCode() != null ? null : cache;
+        if (deferredFetch || imageCode() != null) {
+            // the bundled table is initialized here, so that it can be snapshotted into the image heap
+            if (!loadCached(false)) {
+                loadFallback();
+            }
+        } else if (loadCached(true)) {
+            scheduleRefresh(refreshDelay());
+        } else {
+            loadHolidays();
+            scheduleRefresh(this.cache != null ? refreshDelay() : interval);
+        }
+        if (this.cache != null && this.cache.shared()) {
+            try {
+                // copies fetched by other processes
+                this.cache.watch(() -> loadCached(false));
+            } catch (IOException e) {
+                Logger.getLogger().warn(() -> "failed to watch " + this.cache.data(), e);
+            }
+        }
+    }
+
+    @Override
+    public long version() {
+        return version;
+    }
+
+    @NotNull
+    @Override
+    public DateChanges changesSince(long version) {
+        return changeLog.since(version, this.version);
+    }
+
+    @Override
+    public String apply(LocalDate localDate) {
+        ensureRefreshScheduled();
+        return holidayMap.apply(localDate);
+    }
+
+    /**
+     * Starts fetching the remote resource in background if it's not started yet.
+     */
+    void ensureRefreshScheduled() {
+        if (!refreshScheduled && !"buildtime".equals(imageCode())) {
+            scheduleRefresh(refreshDelay());
+        }
+    }
+
+    private synchronized void scheduleRefresh(long delay) {
+        if (refreshScheduled) {
+            return;
+        }
+        refreshScheduled = true;
+        final Timer timer = new Timer("CSVHolidays", true);
+        if (cache == null) {
+            timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    loadHolidays();
+                }
+            }, delay, interval);
+        } else {
+            scheduleRefresh(timer, delay);
+        }
+    }
+
+    /**
+     * Schedules a refresh at the expiry of the local copy, which may have been renewed by another process meanwhile
+     *
+     * @param timer timer
+     * @param delay delay in milliseconds
+     */
+    private void scheduleRefresh(@NotNull Timer timer, long delay) {
+        timer.schedule(new TimerTask() {
             @Override
             public void run() {
                 loadHolidays();
+                final long remaining = refreshDelay();
+                scheduleRefresh(timer, remaining != 0 ? remaining : interval);
+            }
+        }, delay);
+    }
+
+    /**
+     * @return milliseconds until the local copy needs to be fetched again, 0 without a fresh local copy
+     */
+    private long refreshDelay() {
+        final HolidayDataCache.Cached cached = cache != null ? cache.read(resourceURL) : null;
+        return cached != null ? cache.remainingMillis(cached) : 0;
+    }
+
+    /**
+     * Loads the local copy
+     *
+     * @param freshOnly true to ignore a copy older than the max age
+     * @return true if loaded
+     */
+    private boolean loadCached(boolean freshOnly) {
+        if (cache == null) {
+            return false;
+        }
+        final HolidayDataCache.Cached cached = cache.read(resourceURL);
+        if (cached == null || (freshOnly && !cache.isFresh(cached))) {
+            return false;
+        }
+        if (cached.sha256().equals(loadedSha256)) {
+            return true;
+        }
+        final ReloadEvent event = new ReloadEvent();
+        event.begin();
+        final String source = cache.data().toAbsolutePath().toString();
+        try {
+            final long parseStart = System.nanoTime();
+            publish(parse(cached.bytes()), source);
+            loadedSha256 = cached.sha256();
+            event.commit(source, cached.bytes().length, System.nanoTime() - parseStart, 0, true);
+            return true;
+        } catch (IOException e) {
+            event.commit(source, cached.bytes().length, 0, 0, false);
+            return false;
+        }
+    }
+
+    /**
+     * @param bytes holiday data
+     * @return holidays
+     * @throws IOException the data is malformed or empty
+     */
+    @NotNull
+    private HolidayMap parse(@NotNull byte[] bytes) throws IOException {
+        try {
+            final TreeMap<LocalDate, String> holidays = load(new ByteArrayInputStream(bytes), prefix, charset);
+            if (holidays.isEmpty()) {
+                throw new IOException("no holidays found");
             }
-        }, interval, interval);
+            return HolidayMap.of(holidays);
+        } catch (RuntimeException e) {
+            throw new IOException("malformed holiday data", e);
+        }
+    }
+
+    /**
+     * Returns "buildtime" while GraalVM native-image is initializing classes at build time, "runtime" in a native
+     * executable, or null on a regular JVM.<br>
+     * Not cached in a static field on purpose: this class is initialized at build time and the value would be
+     * baked into the image.
+     *
+     * @return image code
+     */
+    @Nullable
+    static String imageCode() {
+        return System.getProperty("org.graalvm.nativeimage.imagecode");
     }
 
     /**
-     * Load holiday information
+     * Load holiday information. With a local copy, the copy is used instead if another process fetched it while
+     * waiting for the lease.
      */
     private void loadHolidays() {
+        if (cache == null) {
+            fetchHolidays();
+            return;
+        }
+        try {
+            cache.withLease(() -> {
+                if (!loadCached(true)) {
+                    fetchHolidays();
+                }
+                return null;
+            });
+        } catch (IOException e) {
+            Logger.getLogger().warn(() -> "failed to acquire the lease of " + cache.data(), e);
+            fetchHolidays();
+        }
+    }
+
+    /**
+     * Fetch holiday information from the remote resource
+     */
+    private void fetchHolidays() {
+        final ReloadEvent event = new ReloadEvent();
+        event.begin();
+        byte[] bytes = new byte[0];
+        long parseTime = 0;
         try {
             final URLConnection con = new URL(resourceURL).openConnection();
             con.setConnectTimeout(30000);
             con.setReadTimeout(5000);
-            holidayMap = load(con.getInputStream(), prefix, charset);
+            try (InputStream is = con.getInputStream()) {
+                bytes = is.readAllBytes();
+            }
+            final long parseStart = System.nanoTime();
+            publish(parse(bytes), resourceURL);
+            parseTime = System.nanoTime() - parseStart;
+            event.commit(resourceURL, bytes.length, parseTime, 0, true);
+            if (cache != null) {
+                // set first, so that the watcher ignores the copy written here
+                loadedSha256 = HolidayDataCache.sha256(bytes);
+                cache.write(resourceURL, bytes, Instant.now());
+            }
         } catch (IOException e) {
-            // failed to load resourceURL
-            try {
-                holidayMap = load(Objects.requireNonNull(Japan.class.getResourceAsStream(fallbackResource)), prefix, charset);
-            } catch (IOException ignored1) {
+            // failed to load resourceURL. the local copy is preferred to the bundled resource, even if it's stale
+            event.commit(resourceURL, bytes.length, parseTime, 0, false);
+            if (cache != null && loadCached(false)) {
+                FallbackEvent.emit(resourceURL, cache.data().toAbsolutePath().toString(), e);
+            } else {
+                FallbackEvent.emit(resourceURL, fallbackResource, e);
+                loadFallback();
+            }
+        }
+    }
+
+    private void loadFallback() {
+        final ReloadEvent event = new ReloadEvent();
+        event.begin();
+        try {
+            final byte[] bytes;
+            try (InputStream is = Objects.requireNonNull(Japan.class.getResourceAsStream(fallbackResource))) {
+                bytes = is.readAllBytes();
             }
+            final long parseStart = System.nanoTime();
+            publish(parse(bytes), fallbackResource);
+            loadedSha256 = null;
+            event.commit(fallbackResource, bytes.length, System.nanoTime() - parseStart, 0, true);
+        } catch (IOException ignored1) {
+            event.commit(fallbackResource, 0, 0, 0, false);
+        }
+    }
+
+    private synchronized void publish(@NotNull HolidayMap newHolidayMap, @NotNull String source) {
+        final HolidayMap previous = holidayMap;
+        holidayMap = newHolidayMap;
+        final DateChanges changes = changes(previous, newHolidayMap);
+        if (changes.isEmpty()) {
+            // same holidays: nothing to invalidate
+            return;
+        }
+        changeLog.record(version + 1, changes);
+        //noinspection NonAtomicOperationOnVolatileField
+        version++;
+        if (previous.size() != 0 && newHolidayMap.size() != 0) {
+            // candidates are bounded by the changes, where holidays with both tables are compared
+            listeners.notify(new ConfigurationChange(source, version, changes,
+                    date -> !Objects.equals(resolver.apply(previous, date), resolver.apply(newHolidayMap, date))));
+        } else {
+            listeners.notify(new ConfigurationChange(source, version, changes, date -> true));
+        }
+    }
+
+    @Override
+    public void addReloadListener(@NotNull ReloadListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeReloadListener(@NotNull ReloadListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the dates whose results may differ between two tables: changed dates and the week after them, and dates
+     * between the last days of the tables, since the holidays after the last day are calculated by the algorithm.
+     *
+     * @param before table before reload
+     * @param after  table after reload
+     * @return changed dates
+     */
+    @NotNull
+    static DateChanges changes(@NotNull HolidayMap before, @NotNull HolidayMap after) {
+        if (before.size() == 0 || after.size() == 0) {
+            return before.size() == after.size() ? DateChanges.NONE : DateChanges.ALL;
+        }
+        final int[] differences = before.differences(after);
+        final long[] ranges = new long[differences.length * 2 + 2];
+        for (int i = 0; i < differences.length; i++) {
+            ranges[i * 2] = differences[i];
+            ranges[i * 2 + 1] = differences[i] + DERIVED_DAYS;
+        }
+        final long beforeLast = before.lastEpochDay();
+        final long afterLast = after.lastEpochDay();
+        if (beforeLast == afterLast) {
+            return DateChanges.of(Arrays.copyOf(ranges, differences.length * 2), List.of());
         }
+        ranges[differences.length * 2] = Math.min(beforeLast, afterLast);
+        ranges[differences.length * 2 + 1] = Math.max(beforeLast, afterLast) + DERIVED_DAYS;
+        return DateChanges.of(ranges, List.of());
     }
 
     static TreeMap<LocalDate, String> load(InputStream is, String prefix, Charset charset) throws IOException {
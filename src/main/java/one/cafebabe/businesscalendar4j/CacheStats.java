@@ -0,0 +1,36 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+/**
+ * Statistics of the per-date result cache
+ *
+ * @param hits          number of lookups served from the cache
+ * @param misses        number of lookups which evaluated the rules
+ * @param evictions     number of entries evicted to keep the cache size bounded
+ * @param invalidations number of times entries were discarded because a CSV configuration was reloaded
+ * @see BusinessCalendarBuilder#cache(int)
+ * @since 17.1.0
+ */
+public record CacheStats(long hits, long misses, long evictions, long invalidations) {
+    /**
+     * @return hit ratio, or 0 if the cache has never been accessed
+     */
+    public double hitRatio() {
+        final long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
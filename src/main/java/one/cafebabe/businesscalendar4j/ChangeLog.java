@@ -0,0 +1,74 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Dates changed by the recent reloads of a {@link Versioned} source.<br>
+ * Only the last {@link #MAX_ENTRIES} reloads are kept. Changes since an older version are unknown, and
+ * {@link DateChanges#ALL} is returned.
+ */
+final class ChangeLog {
+    static final int MAX_ENTRIES = 16;
+
+    private record Entry(long version, @NotNull DateChanges changes) {
+    }
+
+    private final Deque<Entry> entries = new ArrayDeque<>();
+
+    /**
+     * Records changes. Call before publishing the new version, so that readers seeing the version see the changes.
+     *
+     * @param version new version
+     * @param changes dates changed from the previous version
+     */
+    synchronized void record(long version, @NotNull DateChanges changes) {
+        entries.addLast(new Entry(version, changes));
+        if (MAX_ENTRIES < entries.size()) {
+            entries.removeFirst();
+        }
+    }
+
+    /**
+     * @param version version
+     * @param current current version
+     * @return dates changed since the version
+     */
+    @NotNull
+    synchronized DateChanges since(long version, long current) {
+        if (version == current) {
+            return DateChanges.NONE;
+        }
+        DateChanges changes = DateChanges.NONE;
+        long next = version + 1;
+        for (Entry entry : entries) {
+            if (entry.version < next) {
+                continue;
+            }
+            if (entry.version != next) {
+                // the log doesn't go back to the version
+                return DateChanges.ALL;
+            }
+            changes = changes.union(entry.changes);
+            next++;
+        }
+        return next <= current ? DateChanges.ALL : changes;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Dates whose holiday or business hours changed by a reload of a CSV configuration or the Japanese holiday data.<br>
+ * Rules like "every Sunday" change infinitely many dates, so changed dates are queried by date or by range.
+ *
+ * @see ReloadListener
+ * @since 17.1.0
+ */
+public final class ConfigurationChange {
+    private final String source;
+    private final long version;
+    private final DateChanges candidates;
+    private final Predicate<LocalDate> changed;
+
+    /**
+     * @param source     reloaded location
+     * @param version    version after the reload
+     * @param candidates dates which may have changed
+     * @param changed    tests if a candidate actually changed
+     */
+    ConfigurationChange(@NotNull String source, long version, @NotNull DateChanges candidates,
+                        @NotNull Predicate<LocalDate> changed) {
+        this.source = source;
+        this.version = version;
+        this.candidates = candidates;
+        this.changed = changed;
+    }
+
+    /**
+     * @return reloaded location, like a file path or a URL
+     */
+    @NotNull
+    public String source() {
+        return source;
+    }
+
+    /**
+     * @return version of the configuration after the reload
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * @return dates which may have changed
+     */
+    @NotNull
+    DateChanges candidates() {
+        return candidates;
+    }
+
+    /**
+     * @param date date
+     * @return true if the holiday or business hours of the date changed
+     */
+    public boolean isChanged(@NotNull LocalDate date) {
+        return candidates.contains(date) && changed.test(date);
+    }
+
+    /**
+     * @param fromInclusive first date
+     * @param toInclusive   last date
+     * @return dates in the range whose holiday or business hours changed, in ascending order
+     */
+    @NotNull
+    public List<LocalDate> getChangedDatesBetween(@NotNull LocalDate fromInclusive, @NotNull LocalDate toInclusive) {
+        final List<LocalDate> dates = new ArrayList<>();
+        if (candidates.intersects(fromInclusive, toInclusive)) {
+            for (LocalDate date = fromInclusive; !date.isAfter(toInclusive); date = date.plusDays(1)) {
+                if (isChanged(date)) {
+                    dates.add(date);
+                }
+            }
+        }
+        return dates;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigurationChange{" +
+                "source='" + source + '\'' +
+                ", version=" + version +
+                '}';
+    }
+}
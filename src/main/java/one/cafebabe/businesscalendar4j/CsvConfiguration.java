@@ -18,12 +18,17 @@ package one.cafebabe.businesscalendar4j;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -35,24 +40,93 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.function.BiConsumer;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 /**
- * CSV based configuration
+ * CSV based configuration<br>
+ * A configuration can include base configurations with "include,&lt;path or URL&gt;" lines, resolved relative to the
+ * including configuration. Rules of the including configuration take precedence, then the bases in the order of the
+ * include lines, like store &gt; region &gt; company-wide. Base configurations are loaded once per location and shared
+ * process-wide, and reloading an including configuration reloads a base only if the base file is modified.
  */
-public final class CsvConfiguration {
+public final class CsvConfiguration implements Versioned {
 
     private final Logger logger = Logger.getLogger();
 
-    private BusinessCalendarBuilder builder;
+    /**
+     * rules of this configuration and base configurations, in precedence order
+     */
+    record Layer(@NotNull CsvRules rules, @NotNull List<CsvConfiguration> bases) {
+        private static final Layer EMPTY = new Layer(CsvRules.EMPTY, List.of());
+
+        @Nullable
+        String holiday(@NotNull LocalDate date) {
+            return holiday(date, null);
+        }
+
+        @Nullable
+        String holiday(@NotNull LocalDate date, @Nullable RuleCounter counter) {
+            String holiday = rules.holiday(date, counter);
+            for (int i = 0; holiday == null && i < bases.size(); i++) {
+                holiday = bases.get(i).layer.holiday(date, counter);
+            }
+            return holiday;
+        }
+
+        @Nullable
+        List<BusinessHourSlot> businessHours(@NotNull LocalDate date) {
+            return businessHours(date, null);
+        }
+
+        @Nullable
+        List<BusinessHourSlot> businessHours(@NotNull LocalDate date, @Nullable RuleCounter counter) {
+            List<BusinessHourSlot> businessHours = rules.businessHours(date, counter);
+            for (int i = 0; businessHours == null && i < bases.size(); i++) {
+                businessHours = bases.get(i).layer.businessHours(date, counter);
+            }
+            return businessHours;
+        }
+    }
+
+    /**
+     * base configurations shared process-wide, by location. held weakly, and kept alive by the layers of the
+     * configurations including them
+     */
+    private static final Map<String, SharedBase> sharedBases = new HashMap<>();
+    private static final ReferenceQueue<CsvConfiguration> releasedBases = new ReferenceQueue<>();
+
+    private static final class SharedBase extends WeakReference<CsvConfiguration> {
+        private final String key;
+
+        SharedBase(@NotNull String key, @NotNull CsvConfiguration base) {
+            super(base, releasedBases);
+            this.key = key;
+        }
+    }
+    private static final ThreadLocal<Set<String>> including = ThreadLocal.withInitial(HashSet::new);
+
+    private volatile Layer layer = Layer.EMPTY;
+    /**
+     * configurations including this configuration
+     */
+    private final List<WeakReference<CsvConfiguration>> dependents = new CopyOnWriteArrayList<>();
+    private volatile long version = 0;
+    private final ChangeLog changeLog = new ChangeLog();
+    private final ReloadListeners listeners = new ReloadListeners();
     @Nullable
     private final Path path;
 
     @Nullable
     private final URL url;
+    private final CsvSource source;
+
+    private volatile long lastModified = -1L;
 
-    private long lastModified = -1L;
+    private volatile BusinessCalendarMetrics metrics = BusinessCalendarMetrics.NOOP;
 
     /**
      * Creates a CSV configuration from file path
@@ -62,7 +136,11 @@ public final class CsvConfiguration {
      * @since 1.18
      */
     public static CsvConfiguration getInstance(@NotNull Path path) {
-        return new CsvConfiguration(path);
+        return new CsvConfiguration(path, BusinessCalendarMetrics.NOOP);
+    }
+
+    static CsvConfiguration getInstance(@NotNull Path path, @NotNull BusinessCalendarMetrics metrics) {
+        return new CsvConfiguration(path, metrics);
     }
 
     /**
@@ -73,19 +151,84 @@ public final class CsvConfiguration {
      * @since 1.18
      */
     public static CsvConfiguration getInstance(@NotNull URL url) {
-        return new CsvConfiguration(url);
+        return new CsvConfiguration(url, BusinessCalendarMetrics.NOOP);
+    }
+
+    static CsvConfiguration getInstance(@NotNull URL url, @NotNull BusinessCalendarMetrics metrics) {
+        return new CsvConfiguration(url, metrics);
     }
 
-    private CsvConfiguration(@NotNull Path path) {
+    private CsvConfiguration(@NotNull Path path, @NotNull BusinessCalendarMetrics metrics) {
         this.path = path;
         this.url = null;
-        reload();
+        this.metrics = metrics;
+        this.source = CsvSource.of(path.toAbsolutePath().normalize().toString());
+        subscribe();
     }
 
-    private CsvConfiguration(@NotNull URL url) {
+    private CsvConfiguration(@NotNull URL url, @NotNull BusinessCalendarMetrics metrics) {
         this.path = null;
         this.url = url;
-        reload();
+        this.metrics = metrics;
+        String key;
+        try {
+            key = url.toURI().normalize().toString();
+        } catch (URISyntaxException e) {
+            key = url.toString();
+        }
+        this.source = CsvSource.of(key);
+        subscribe();
+    }
+
+    /**
+     * Starts with the rules loaded by another configuration of the same location if any, and the file isn't modified
+     * since then, or the URL was loaded within the reload interval. Loads the location otherwise.
+     */
+    private void subscribe() {
+        final CsvSource.Loaded last = source.subscribe(this);
+        if (last != null && last.layer() != null && (path == null ? source.isFresh(last)
+                : path.toFile().lastModified() == last.lastModified() && path.toFile().length() == last.bytes())) {
+            lastModified = last.lastModified();
+            for (CsvConfiguration base : last.layer().bases) {
+                base.reloadIfModified();
+            }
+            notifyReloaded(publish(last.layer()));
+        } else {
+            reload();
+        }
+    }
+
+    /**
+     * Specify metrics to be notified of reloads
+     *
+     * @param metrics metrics
+     * @return this instance
+     * @since 17.1.0
+     */
+    public CsvConfiguration metrics(@NotNull BusinessCalendarMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * minimum number of lines parsed in parallel
+     */
+    static final int PARALLEL_THRESHOLD = 1024;
+
+    private volatile boolean parallel = false;
+
+    /**
+     * Parse lines in parallel on the common ForkJoinPool on subsequent reloads. Only configurations with
+     * {@value #PARALLEL_THRESHOLD} or more lines are parsed in parallel. Rules and warnings are the same as sequential
+     * parsing.
+     *
+     * @param parallel true to parse lines in parallel
+     * @return this instance
+     * @since 17.1.0
+     */
+    public CsvConfiguration parallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
     }
 
     private boolean reloadScheduled = false;
@@ -96,30 +239,41 @@ public final class CsvConfiguration {
         }
         if (interval != null) {
             reloadScheduled = true;
-            final Thread thread = new Thread(() -> {
-                while (true) {
-                    try {
-                        //noinspection BusyWait
-                        Thread.sleep(interval.toMillis());
-                        reload();
-                    } catch (Exception ignore) {
-                    }
-                }
-
-            });
-            thread.setDaemon(true);
-            thread.start();
+            // one reload thread per location, shared with the other configurations of the location
+            source.scheduleReload(interval);
         }
     }
 
     /**
-     * reload configuration file
+     * reload configuration file.<br>
+     * Configurations of the same path or URL share one loader: a reload requested while another configuration of the
+     * location is reloading waits for it and shares its result, and the result is published to every configuration of
+     * the location.
      *
      * @return warning messages
      * @since 1.18
      */
     public List<String> reload() {
+        // includes resolved on this thread don't wait for loads in flight, which may be resolving includes themselves
+        return source.load(this, including.get().isEmpty());
+    }
+
+    /**
+     * Fetches and parses the location, called by the source on behalf of every configuration of the location
+     *
+     * @param previous the last successful load of the location, whose rules are reused if the content is the same
+     * @return result
+     */
+    @NotNull
+    CsvSource.Loaded load(@Nullable CsvSource.Loaded previous) {
+        final ReloadEvent event = new ReloadEvent();
+        event.begin();
+        final long start = System.nanoTime();
         List<String> messages = new ArrayList<>();
+        long bytes = 0;
+        long parseTime = 0;
+        long latestLastModified = -1L;
+        byte[] content = null;
 
         if (path != null) {
 
@@ -129,17 +283,14 @@ public final class CsvConfiguration {
                 messages.add(message);
                 logger.warn(() -> message);
             }
-            final long latestLastModified = file.lastModified();
+            latestLastModified = file.lastModified();
 
             if (lastModified == latestLastModified) {
                 logger.debug(() -> path.toAbsolutePath() + " is not modified");
             }
-            lastModified = latestLastModified;
-            List<String> lines;
             try {
                 logger.info(() -> "loading: " + path.toAbsolutePath());
-                lines = Files.readAllLines(path, StandardCharsets.UTF_8);
-                messages.addAll(csv(lines));
+                content = Files.readAllBytes(path);
             } catch (IOException io) {
                 final String message = "failed to load: " + path.toAbsolutePath();
                 messages.add(message);
@@ -147,101 +298,443 @@ public final class CsvConfiguration {
             }
         }
         if (url != null) {
-            final URLConnection con;
             try {
-                logger.info(() -> "loading: " + url);
-                con = url.openConnection();
-                con.setReadTimeout((int) Duration.of(1, ChronoUnit.MINUTES).toMillis());
-                con.setConnectTimeout((int) Duration.of(30, ChronoUnit.SECONDS).toMillis());
-                con.connect();
-                ByteArrayOutputStream out = new ByteArrayOutputStream(2048);
-                try (InputStream is = con.getInputStream()) {
-                    int read;
-                    while (-1 != (read = is.read())) {
-                        out.write(read);
+                content = source.fetch(() -> {
+                    logger.info(() -> "loading: " + url);
+                    final URLConnection con = url.openConnection();
+                    con.setReadTimeout((int) Duration.of(1, ChronoUnit.MINUTES).toMillis());
+                    con.setConnectTimeout((int) Duration.of(30, ChronoUnit.SECONDS).toMillis());
+                    con.connect();
+                    try (InputStream is = con.getInputStream()) {
+                        return is.readAllBytes();
                     }
-                }
-                String content = out.toString(StandardCharsets.UTF_8);
-
-                final List<String> lines = Arrays.asList(content.split("\n"));
-                messages.addAll(csv(lines));
+                });
             } catch (IOException e) {
                 final String message = "failed to connect: " + url;
                 messages.add(message);
                 logger.warn(() -> message, e);
+                FallbackEvent.emit(url.toString(), "previous configuration", e);
             }
         }
-        return messages;
+
+        Layer loadedLayer = null;
+        String sha256 = null;
+        int warnings = 0;
+        if (content != null) {
+            bytes = content.length;
+            final String checksum = HolidayDataCache.sha256(content);
+            if (previous != null && previous.layer() != null && checksum.equals(previous.sha256())) {
+                // same content: the rules are reused, and only modified bases are reloaded
+                for (CsvConfiguration base : previous.layer().bases) {
+                    base.reloadIfModified();
+                }
+                loadedLayer = previous.layer();
+                sha256 = checksum;
+                warnings = previous.warnings();
+                messages.addAll(previous.messages());
+            } else {
+                try {
+                    final List<String> lines = path != null
+                            ? StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(content)).toString().lines().toList()
+                            : Arrays.asList(new String(content, StandardCharsets.UTF_8).split("\n"));
+                    final long parseStart = System.nanoTime();
+                    final Parsed parsed = parse(lines, parallel && PARALLEL_THRESHOLD <= lines.size());
+                    parseTime = System.nanoTime() - parseStart;
+                    loadedLayer = parsed.layer();
+                    sha256 = checksum;
+                    warnings = parsed.warnings().size();
+                    messages.addAll(parsed.warnings());
+                } catch (CharacterCodingException e) {
+                    final String message = "failed to load: " + location();
+                    messages.add(message);
+                    logger.warn(() -> message, e);
+                }
+            }
+        }
+        event.commit(location(), bytes, parseTime, warnings, loadedLayer != null);
+        final long end = System.nanoTime();
+        return new CsvSource.Loaded(loadedLayer, sha256, List.copyOf(messages), warnings, bytes, latestLastModified,
+                end - start, end);
+    }
+
+    /**
+     * Called by the source after each load of the location
+     *
+     * @param loaded result
+     */
+    void loaded(@NotNull CsvSource.Loaded loaded) {
+        lastModified = loaded.lastModified();
+        // the layer is reused when the checksum didn't change, and nothing changed then
+        if (loaded.layer() != null && loaded.layer() != layer) {
+            notifyReloaded(publish(loaded.layer()));
+        }
+        metrics.reload(location(), loaded.nanos(), loaded.bytes(), loaded.warnings(), loaded.success());
+    }
+
+    /**
+     * Returns the version of this configuration, which is incremented on each reload
+     *
+     * @return version
+     * @since 17.1.0
+     */
+    @Override
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Adds a listener to be notified asynchronously after each successful reload
+     *
+     * @param listener listener
+     * @since 17.1.0
+     */
+    @Override
+    public void addReloadListener(@NotNull ReloadListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener
+     *
+     * @param listener listener
+     * @since 17.1.0
+     */
+    @Override
+    public void removeReloadListener(@NotNull ReloadListener listener) {
+        listeners.remove(listener);
+    }
+
+    @NotNull
+    @Override
+    public DateChanges changesSince(long version) {
+        return changeLog.since(version, this.version);
     }
 
     Function<LocalDate, String> holiday() {
-        return date -> builder.holiday().apply(date);
+        return holiday(null);
+    }
+
+    /**
+     * @param counter counts the rules evaluated, or null
+     * @return holiday rules of the current layer
+     */
+    Function<LocalDate, String> holiday(@Nullable RuleCounter counter) {
+        return date -> layer.holiday(date, counter);
     }
 
     Function<LocalDate, List<BusinessHourSlot>> getBusinessHours() {
-        return date -> builder.getBusinessHours().apply(date);
+        return getBusinessHours(null);
+    }
+
+    /**
+     * @param counter counts the rules evaluated, or null
+     * @return business hours rules of the current layer
+     */
+    Function<LocalDate, List<BusinessHourSlot>> getBusinessHours(@Nullable RuleCounter counter) {
+        return date -> layer.businessHours(date, counter);
+    }
+
+    /**
+     * @return approximate heap footprint of the compiled rules. base configurations are shared and not counted
+     */
+    long estimatedBytes() {
+        return layer.rules.estimatedBytes();
+    }
+
+    @NotNull
+    CsvRules rules() {
+        return layer.rules;
+    }
+
+    /**
+     * @return base configurations in precedence order
+     */
+    @NotNull
+    List<CsvConfiguration> bases() {
+        return layer.bases;
+    }
+
+    @NotNull
+    private String location() {
+        return String.valueOf(path != null ? path.toAbsolutePath() : url);
+    }
+
+    /**
+     * Reloads a path based configuration if the file, or any of its bases, is modified since the last load
+     */
+    private void reloadIfModified() {
+        if (path != null && path.toFile().lastModified() != lastModified) {
+            reload();
+        } else {
+            for (CsvConfiguration base : layer.bases) {
+                base.reloadIfModified();
+            }
+        }
+    }
+
+    /**
+     * Returns the base configuration at the location, loading it on first use
+     *
+     * @param location path or URL, relative to this configuration
+     * @return base configuration
+     * @throws IOException the location is malformed or doesn't exist
+     */
+    @NotNull
+    private CsvConfiguration base(@NotNull String location) throws IOException {
+        final Path basePath;
+        final URL baseURL;
+        if (url != null || location.contains("://")) {
+            basePath = null;
+            baseURL = url != null ? new URL(url, location) : new URL(location);
+        } else {
+            //noinspection ConstantConditions
+            final Path parent = path.toAbsolutePath().getParent();
+            basePath = parent.resolve(location).normalize();
+            baseURL = null;
+            if (!Files.exists(basePath)) {
+                throw new IOException(basePath + " does not exist");
+            }
+        }
+        final String key = String.valueOf(basePath != null ? basePath : baseURL);
+        if (key.equals(location()) || including.get().contains(key)) {
+            throw new IOException("circular include: " + key);
+        }
+        CsvConfiguration base = sharedBase(key);
+        if (base != null) {
+            base.reloadIfModified();
+            return base;
+        }
+        including.get().add(location());
+        try {
+            base = basePath != null ? new CsvConfiguration(basePath, BusinessCalendarMetrics.NOOP)
+                    : new CsvConfiguration(Objects.requireNonNull(baseURL), BusinessCalendarMetrics.NOOP);
+        } finally {
+            including.get().remove(location());
+        }
+        synchronized (sharedBases) {
+            final CsvConfiguration loaded = sharedBase(key);
+            if (loaded != null) {
+                return loaded;
+            }
+            sharedBases.put(key, new SharedBase(key, base));
+            return base;
+        }
+    }
+
+    /**
+     * @param key location of the base
+     * @return the base configuration shared process-wide, or null if it's not loaded or no longer referenced
+     */
+    @Nullable
+    static CsvConfiguration sharedBase(@NotNull String key) {
+        synchronized (sharedBases) {
+            expungeBases();
+            final SharedBase shared = sharedBases.get(key);
+            return shared != null ? shared.get() : null;
+        }
+    }
+
+    private static void expungeBases() {
+        Reference<? extends CsvConfiguration> reference;
+        while ((reference = releasedBases.poll()) != null) {
+            final SharedBase shared = (SharedBase) reference;
+            // the key may have been registered again with a new instance
+            sharedBases.remove(shared.key, shared);
+        }
+    }
+
+    /**
+     * Called after a base configuration is reloaded
+     *
+     * @param base    reloaded base
+     * @param changes dates changed in the base
+     * @param changed tests if a candidate date actually changed in the base
+     */
+    private void baseReloaded(@NotNull CsvConfiguration base, @NotNull DateChanges changes,
+                              @NotNull Predicate<LocalDate> changed) {
+        final ConfigurationChange change;
+        synchronized (this) {
+            final Layer current = layer;
+            if (!current.bases.contains(base)) {
+                return;
+            }
+            changeLog.record(version + 1, changes);
+            //noinspection NonAtomicOperationOnVolatileField
+            version++;
+            // dates overridden by this configuration didn't change
+            change = new ConfigurationChange(location(), version, changes, date -> changed.test(date)
+                    && (current.rules.holiday(date) == null || current.rules.businessHours(date) == null));
+        }
+        notifyReloaded(change);
+    }
+
+    private void notifyReloaded(@NotNull ConfigurationChange change) {
+        listeners.notify(change);
+        for (WeakReference<CsvConfiguration> reference : dependents) {
+            final CsvConfiguration dependent = reference.get();
+            if (dependent == null) {
+                dependents.remove(reference);
+            } else {
+                dependent.baseReloaded(this, change.candidates(), change::isChanged);
+            }
+        }
     }
 
     List<String> csv(List<String> lines) {
-        List<String> warnings = new ArrayList<>();
-        final BusinessCalendarBuilder newConf = new BusinessCalendarBuilder();
+        return csv(lines, parallel && PARALLEL_THRESHOLD <= lines.size());
+    }
+
+    /**
+     * result of parsing a line: a rule, a warning, or neither for comments and directives
+     */
+    private record ParsedLine(@Nullable CsvRule rule, @Nullable String warning) {
+        private static final ParsedLine NONE = new ParsedLine(null, null);
+    }
+
+    private record Parsed(@NotNull Layer layer, @NotNull List<String> warnings) {
+    }
+
+    List<String> csv(List<String> lines, boolean parallel) {
+        final Parsed parsed = parse(lines, parallel);
+        notifyReloaded(publish(parsed.layer()));
+        return parsed.warnings();
+    }
+
+    @NotNull
+    private Parsed parse(@NotNull List<String> lines, boolean parallel) {
+        // ymdFormat / mdFormat are the only state carried between lines. include lines are collected in this pass
+        final List<CsvConfiguration> bases = new ArrayList<>();
+        final DateTimeFormatter[] ymdFormats = new DateTimeFormatter[lines.size()];
+        final DateTimeFormatter[] mdFormats = new DateTimeFormatter[lines.size()];
+        final String[] directiveWarnings = new String[lines.size()];
         DateTimeFormatter ymdFormat = DateTimeFormatter.ofPattern("yyyy/M/d");
         DateTimeFormatter mdFormat = DateTimeFormatter.ofPattern("M/d");
         for (int i = 0; i < lines.size(); i++) {
-            String line = lines.get(i);
-            if (line.startsWith("#")) {
-                continue;
-            }
-            final String[] split = line.split(",");
+            final String line = lines.get(i);
             try {
-                if (1 <= split.length) {
-                    switch (split[0]) {
-                        case "ymdFormat":
-                            ymdFormat = DateTimeFormatter.ofPattern(split[1]);
-                            break;
-                        case "mdFormat":
-                            mdFormat = DateTimeFormatter.ofPattern(split[1]);
-                            break;
-                        case "hours":
-                            on(newConf, ymdFormat, mdFormat, split, BusinessCalendarPredicate::hours);
-                            break;
-                        case "holiday":
-                            on(newConf, ymdFormat, mdFormat, split, BusinessCalendarPredicate::holiday);
-                            break;
-                        default:
-                            final String message = "Skipping line[" + (i + 1) + "] (unable to parse): \"" + line + "\"";
-                            warnings.add(message);
-                            logger.warn(() -> message);
+                if (line.startsWith("ymdFormat") || line.startsWith("mdFormat") || line.startsWith("include")) {
+                    final String[] split = line.split(",");
+                    if (split[0].equals("ymdFormat")) {
+                        ymdFormat = DateTimeFormatter.ofPattern(split[1]);
+                    } else if (split[0].equals("mdFormat")) {
+                        mdFormat = DateTimeFormatter.ofPattern(split[1]);
+                    } else if (split[0].equals("include")) {
+                        final CsvConfiguration base = base(join(split, 1));
+                        if (!bases.contains(base)) {
+                            bases.add(base);
+                        }
                     }
                 }
             } catch (Exception e) {
-                final String message = "Skipping line[" + (i + 1) + "] (unable to parse): \"" + line + "\"";
-                warnings.add(message);
-                logger.warn(() -> message);
+                directiveWarnings[i] = unableToParse(i, line);
+            }
+            ymdFormats[i] = ymdFormat;
+            mdFormats[i] = mdFormat;
+        }
+
+        final IntFunction<ParsedLine> parseLine = i -> directiveWarnings[i] != null
+                ? new ParsedLine(null, directiveWarnings[i]) : parseLine(i, lines.get(i), ymdFormats[i], mdFormats[i]);
+        final ParsedLine[] parsedLines;
+        if (parallel) {
+            // runs on the common ForkJoinPool. toArray() keeps the line order
+            parsedLines = IntStream.range(0, lines.size()).parallel().mapToObj(parseLine).toArray(ParsedLine[]::new);
+        } else {
+            parsedLines = new ParsedLine[lines.size()];
+            for (int i = 0; i < lines.size(); i++) {
+                parsedLines[i] = parseLine.apply(i);
             }
         }
-        this.builder = newConf;
-        return warnings;
+
+        List<String> warnings = new ArrayList<>();
+        final List<CsvRule> newRules = new ArrayList<>();
+        for (ParsedLine parsed : parsedLines) {
+            if (parsed.rule != null) {
+                newRules.add(parsed.rule);
+            }
+            if (parsed.warning != null) {
+                warnings.add(parsed.warning);
+                logger.warn(parsed::warning);
+            }
+        }
+        return new Parsed(new Layer(CsvRules.of(newRules), List.copyOf(bases)), warnings);
+    }
+
+    @NotNull
+    private synchronized ConfigurationChange publish(@NotNull Layer newLayer) {
+        final Layer previous = this.layer;
+        for (CsvConfiguration base : newLayer.bases) {
+            if (!previous.bases.contains(base)) {
+                base.dependents.add(new WeakReference<>(this));
+            }
+        }
+        for (CsvConfiguration base : previous.bases) {
+            if (!newLayer.bases.contains(base)) {
+                base.dependents.removeIf(reference -> reference.get() == this);
+            }
+        }
+        this.layer = newLayer;
+        final DateChanges changes = previous.bases.equals(newLayer.bases)
+                ? CsvRules.changes(previous.rules, newLayer.rules) : DateChanges.ALL;
+        changeLog.record(version + 1, changes);
+        //noinspection NonAtomicOperationOnVolatileField
+        version++;
+        return new ConfigurationChange(location(), version, changes,
+                date -> !Objects.equals(previous.holiday(date), newLayer.holiday(date))
+                        || !Objects.equals(previous.businessHours(date), newLayer.businessHours(date)));
+    }
+
+    @NotNull
+    private ParsedLine parseLine(int i, @NotNull String line, @NotNull DateTimeFormatter ymdFormat,
+                                 @NotNull DateTimeFormatter mdFormat) {
+        if (line.startsWith("#")) {
+            return ParsedLine.NONE;
+        }
+        final String[] split = line.split(",");
+        try {
+            if (1 <= split.length) {
+                switch (split[0]) {
+                    case "ymdFormat":
+                    case "mdFormat":
+                    case "include":
+                        // applied in the directive pass
+                        return ParsedLine.NONE;
+                    case "hours":
+                        return new ParsedLine(on(ymdFormat, mdFormat, split, false), null);
+                    case "holiday":
+                        return new ParsedLine(on(ymdFormat, mdFormat, split, true), null);
+                    default:
+                        return new ParsedLine(null, unableToParse(i, line));
+                }
+            }
+        } catch (Exception e) {
+            return new ParsedLine(null, unableToParse(i, line));
+        }
+        return ParsedLine.NONE;
     }
 
-    private void on(@NotNull BusinessCalendarBuilder newConf, @NotNull DateTimeFormatter ymdFormatter, @NotNull DateTimeFormatter mdFormatter,
-                    @NotNull String[] lines, BiConsumer<BusinessCalendarPredicate, String> consumer) {
+    @NotNull
+    private static String unableToParse(int i, @NotNull String line) {
+        return "Skipping line[" + (i + 1) + "] (unable to parse): \"" + line + "\"";
+    }
+
+    @NotNull
+    private CsvRule on(@NotNull DateTimeFormatter ymdFormatter, @NotNull DateTimeFormatter mdFormatter,
+                       @NotNull String[] lines, boolean holiday) {
         // date
         try {
             try {
                 final LocalDate date = LocalDate.parse(lines[1], ymdFormatter);
-                consumer.accept(new BusinessCalendarPredicate(date, newConf), join(lines, 2));
+                return CsvRule.of(holiday, date, null, null, List.of(), join(lines, 2));
             } catch (DateTimeParseException e1) {
                 final MonthDay parsed = MonthDay.parse(lines[1], mdFormatter);
-                consumer.accept(new BusinessCalendarPredicate(date -> date.getMonth() == parsed.getMonth()
-                        && date.getDayOfMonth() == parsed.getDayOfMonth(), newConf), join(lines, 2));
+                return CsvRule.of(holiday, null, parsed, null, List.of(), join(lines, 2));
             }
         } catch (DateTimeParseException e2) {
             // ordinal
             try {
-                parseWeekDays(newConf, lines, 2, Integer.valueOf(lines[1]), consumer);
+                return parseWeekDays(lines, 2, Integer.valueOf(lines[1]), holiday);
             } catch (NumberFormatException nfe) {
-                parseWeekDays(newConf, lines, 1, null, consumer);
+                return parseWeekDays(lines, 1, null, holiday);
             }
 
         }
@@ -258,8 +751,8 @@ public final class CsvConfiguration {
         put("SUN", "SUNDAY");
     }};
 
-    private void parseWeekDays(@NotNull BusinessCalendarBuilder newConf, @NotNull String[] lines, int fromIndex, @Nullable Integer ordinal,
-                               BiConsumer<BusinessCalendarPredicate, String> consumer) {
+    @NotNull
+    private CsvRule parseWeekDays(@NotNull String[] lines, int fromIndex, @Nullable Integer ordinal, boolean holiday) {
         List<DayOfWeek> dayOfWeeks = new ArrayList<>();
         while ((fromIndex) < lines.length) {
             final String uppercase = lines[fromIndex].toUpperCase(Locale.ENGLISH);
@@ -270,17 +763,7 @@ public final class CsvConfiguration {
             }
             fromIndex++;
         }
-        String buf = join(lines, fromIndex);
-        final DayOfWeek[] objects = dayOfWeeks.toArray(new DayOfWeek[0]);
-        if (ordinal == null) {
-            if (dayOfWeeks.isEmpty()) {
-                consumer.accept(new BusinessCalendarPredicate(e -> true, newConf), buf);
-            } else {
-                consumer.accept(new BusinessCalendarPredicate(newConf, objects), buf);
-            }
-        } else {
-            consumer.accept(new BusinessCalendarPredicate(newConf, ordinal, objects), buf);
-        }
+        return CsvRule.of(holiday, null, null, ordinal, dayOfWeeks, join(lines, fromIndex));
     }
 
     private String join(String[] split, int fromIndex) {
@@ -0,0 +1,89 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A "holiday" or "hours" line of a CSV configuration, normalised so that lines with the same meaning are equal:
+ * dates are parsed, day of weeks are a set and business hours are parsed and sorted.
+ * Exactly one of date, monthDay and ordinal / dayOfWeeks specifies the days the rule applies to.
+ *
+ * @param holiday    true for a "holiday" line, false for an "hours" line
+ * @param date       the date, or null
+ * @param monthDay   the month and day of every year, or null
+ * @param ordinal    ordinal of the day of weeks in the month, or null
+ * @param dayOfWeeks day of weeks. matches every day if empty and neither date, monthDay nor ordinal is specified
+ * @param name       holiday name, null for "hours" lines
+ * @param hours      business hours, empty for "holiday" lines
+ */
+record CsvRule(boolean holiday, @Nullable LocalDate date, @Nullable MonthDay monthDay, @Nullable Integer ordinal,
+               @NotNull Set<DayOfWeek> dayOfWeeks, @Nullable String name, @NotNull List<BusinessHourFromTo> hours) {
+
+    /**
+     * @param holiday    true for a "holiday" line, false for an "hours" line
+     * @param date       the date, or null
+     * @param monthDay   the month and day of every year, or null
+     * @param ordinal    ordinal of the day of weeks in the month, or null
+     * @param dayOfWeeks day of weeks
+     * @param value      holiday name or business hours
+     * @return rule
+     * @throws IllegalArgumentException malformed business hours
+     */
+    @NotNull
+    static CsvRule of(boolean holiday, @Nullable LocalDate date, @Nullable MonthDay monthDay, @Nullable Integer ordinal,
+                      @NotNull Collection<DayOfWeek> dayOfWeeks, @NotNull String value) {
+        final EnumSet<DayOfWeek> set = EnumSet.noneOf(DayOfWeek.class);
+        set.addAll(dayOfWeeks);
+        return new CsvRule(holiday, date, monthDay, ordinal, Collections.unmodifiableSet(set),
+                holiday ? value : null, holiday ? List.of() : BusinessCalendarBuilder.BusinessHours.parse(value));
+    }
+
+    /**
+     * @return predicate matching the days this rule applies to
+     */
+    @NotNull
+    Predicate<LocalDate> predicate() {
+        if (date != null) {
+            final LocalDate date = this.date;
+            return e -> e.isEqual(date);
+        }
+        if (monthDay != null) {
+            final MonthDay monthDay = this.monthDay;
+            return e -> e.getMonth() == monthDay.getMonth() && e.getDayOfMonth() == monthDay.getDayOfMonth();
+        }
+        final DayOfWeek[] dayOfWeeks = this.dayOfWeeks.toArray(new DayOfWeek[0]);
+        if (ordinal != null) {
+            return BusinessCalendarPredicate.predicate(ordinal, dayOfWeeks);
+        }
+        if (dayOfWeeks.length == 0) {
+            return e -> true;
+        }
+        final Set<DayOfWeek> set = this.dayOfWeeks;
+        return e -> set.contains(e.getDayOfWeek());
+    }
+}
@@ -0,0 +1,286 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Compiled rules of a CSV configuration.<br>
+ * Instances are content-addressed: configurations with the same normalised rules share one compiled instance through
+ * a process-wide registry which holds the instances weakly, so that memory scales with the number of distinct rule
+ * sets rather than the number of configurations.<br>
+ * Rules on a specific date and on a month-day are indexed by date and by month-day, so a query probes two tables
+ * before testing the day of week / ordinal rules in line order. The first matching line wins, as if all rules were
+ * tested in line order.
+ */
+final class CsvRules {
+    private static final Map<List<CsvRule>, Entry> registry = new HashMap<>();
+    private static final ReferenceQueue<CsvRules> queue = new ReferenceQueue<>();
+
+    private static final class Entry extends WeakReference<CsvRules> {
+        private final List<CsvRule> key;
+
+        Entry(@NotNull CsvRules rules) {
+            super(rules, queue);
+            this.key = rules.rules;
+        }
+    }
+
+    static final CsvRules EMPTY = of(List.of());
+
+    /**
+     * a rule with its line number
+     */
+    private record Line<T>(int number, @NotNull Predicate<LocalDate> predicate, @NotNull T value) {
+    }
+
+    private static final class RuleIndex<T> {
+        private final Map<LocalDate, Line<T>> dates = new HashMap<>();
+        // generic arrays can't be created. the array only ever holds Line<T> added by add()
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private final Line<T>[] monthDays = new Line[13 * 32];
+        private final List<Line<T>> others = new ArrayList<>();
+
+        void add(int number, @NotNull CsvRule rule, @NotNull T value) {
+            final Line<T> line = new Line<>(number, rule.predicate(), value);
+            if (rule.date() != null) {
+                dates.putIfAbsent(rule.date(), line);
+            } else if (rule.monthDay() != null) {
+                final int index = monthDay(rule.monthDay().getMonthValue(), rule.monthDay().getDayOfMonth());
+                if (monthDays[index] == null) {
+                    monthDays[index] = line;
+                }
+            } else {
+                others.add(line);
+            }
+        }
+
+        private static int monthDay(int month, int dayOfMonth) {
+            return month * 32 + dayOfMonth;
+        }
+
+        /**
+         * @param date    date
+         * @param counter counts the rules evaluated, or null
+         * @return the first line matching the date
+         */
+        @Nullable
+        Line<T> find(@NotNull LocalDate date, @Nullable RuleCounter counter) {
+            if (counter != null) {
+                // the date lookup and the month-day lookup
+                counter.increment();
+                counter.increment();
+            }
+            Line<T> found = dates.get(date);
+            final Line<T> monthDay = monthDays[monthDay(date.getMonthValue(), date.getDayOfMonth())];
+            if (found == null || (monthDay != null && monthDay.number < found.number)) {
+                found = monthDay;
+            }
+            for (Line<T> line : others) {
+                if (found != null && found.number < line.number) {
+                    break;
+                }
+                if (counter != null) {
+                    counter.increment();
+                }
+                if (line.predicate.test(date)) {
+                    return line;
+                }
+            }
+            return found;
+        }
+    }
+
+    /**
+     * approximate heap footprint of a rule and its index entry, assuming compressed oops. names and business hours are
+     * counted separately
+     */
+    private static final int BYTES_PER_RULE = 160;
+    private static final int BYTES_PER_SLOT = 64;
+    private static final int INDEX_BYTES = 2 * (16 + 4 * 13 * 32) + 256;
+
+    private final List<CsvRule> rules;
+    private final long estimatedBytes;
+    private final RuleIndex<String> holidays = new RuleIndex<>();
+    private final RuleIndex<BusinessCalendarBuilder.BusinessHours> businessHours = new RuleIndex<>();
+
+    private CsvRules(@NotNull List<CsvRule> rules) {
+        this.rules = rules;
+        long estimatedBytes = INDEX_BYTES;
+        for (int i = 0; i < rules.size(); i++) {
+            final CsvRule rule = rules.get(i);
+            estimatedBytes += BYTES_PER_RULE + (rule.name() != null ? 40 + rule.name().length() * 2L : 0)
+                    + (long) BYTES_PER_SLOT * rule.hours().size();
+            if (rule.holiday()) {
+                //noinspection ConstantConditions
+                holidays.add(i, rule, rule.name());
+            } else {
+                businessHours.add(i, rule, new BusinessCalendarBuilder.BusinessHours(rule.predicate(), rule.hours()));
+            }
+        }
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    /**
+     * Returns compiled rules, shared with other configurations having the same rules
+     *
+     * @param rules rules in line order
+     * @return compiled rules
+     */
+    @NotNull
+    static synchronized CsvRules of(@NotNull List<CsvRule> rules) {
+        expunge();
+        final Entry entry = registry.get(rules);
+        CsvRules compiled = entry != null ? entry.get() : null;
+        if (compiled == null) {
+            compiled = new CsvRules(List.copyOf(rules));
+            registry.put(compiled.rules, new Entry(compiled));
+        }
+        return compiled;
+    }
+
+    /**
+     * @return number of distinct rule sets alive, process-wide
+     */
+    static synchronized int registered() {
+        expunge();
+        return registry.size();
+    }
+
+    /**
+     * @param rules rules
+     * @return true if compiled rules with the same content are alive
+     */
+    static synchronized boolean registered(@NotNull List<CsvRule> rules) {
+        expunge();
+        final Entry entry = registry.get(rules);
+        return entry != null && entry.get() != null;
+    }
+
+    private static void expunge() {
+        Reference<? extends CsvRules> reference;
+        while ((reference = queue.poll()) != null) {
+            final Entry entry = (Entry) reference;
+            // the key may have been registered again with a new instance
+            registry.remove(entry.key, entry);
+        }
+    }
+
+    /**
+     * Returns the dates whose results may differ between two rule sets.<br>
+     * Dates which match none of the added or removed rules get the same result from both, as long as the remaining
+     * rules keep their relative order. Otherwise every date may have changed.
+     *
+     * @param before rules before reload
+     * @param after  rules after reload
+     * @return changed dates
+     */
+    @NotNull
+    static DateChanges changes(@NotNull CsvRules before, @NotNull CsvRules after) {
+        if (before == after) {
+            return DateChanges.NONE;
+        }
+        final List<CsvRule> changed = new ArrayList<>();
+        final List<CsvRule> keptBefore = kept(before.rules, after.rules, changed);
+        final List<CsvRule> keptAfter = kept(after.rules, before.rules, changed);
+        if (!keptBefore.equals(keptAfter)) {
+            return DateChanges.ALL;
+        }
+        final long[] ranges = new long[changed.size() * 2];
+        int length = 0;
+        final List<Predicate<LocalDate>> predicates = new ArrayList<>();
+        for (CsvRule rule : changed) {
+            if (rule.date() != null) {
+                ranges[length++] = rule.date().toEpochDay();
+                ranges[length++] = rule.date().toEpochDay();
+            } else {
+                predicates.add(rule.predicate());
+            }
+        }
+        return DateChanges.of(Arrays.copyOf(ranges, length), predicates);
+    }
+
+    /**
+     * @param rules   rules
+     * @param others  rules to compare with
+     * @param changed receives rules not in others
+     * @return rules also in others, in order
+     */
+    @NotNull
+    private static List<CsvRule> kept(@NotNull List<CsvRule> rules, @NotNull List<CsvRule> others,
+                                      @NotNull List<CsvRule> changed) {
+        final Map<CsvRule, Integer> remaining = new HashMap<>();
+        for (CsvRule rule : others) {
+            remaining.merge(rule, 1, Integer::sum);
+        }
+        final List<CsvRule> kept = new ArrayList<>();
+        for (CsvRule rule : rules) {
+            if (remaining.getOrDefault(rule, 0) > 0) {
+                remaining.merge(rule, -1, Integer::sum);
+                kept.add(rule);
+            } else {
+                changed.add(rule);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * @return approximate heap footprint of the compiled rules
+     */
+    long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    @NotNull
+    List<CsvRule> rules() {
+        return rules;
+    }
+
+    @Nullable
+    String holiday(@NotNull LocalDate date) {
+        return holiday(date, null);
+    }
+
+    @Nullable
+    String holiday(@NotNull LocalDate date, @Nullable RuleCounter counter) {
+        final Line<String> line = holidays.find(date, counter);
+        return line != null ? line.value : null;
+    }
+
+    @Nullable
+    List<BusinessHourSlot> businessHours(@NotNull LocalDate date) {
+        return businessHours(date, null);
+    }
+
+    @Nullable
+    List<BusinessHourSlot> businessHours(@NotNull LocalDate date, @Nullable RuleCounter counter) {
+        final Line<BusinessCalendarBuilder.BusinessHours> line = businessHours.find(date, counter);
+        return line != null ? line.value.apply(date) : null;
+    }
+}
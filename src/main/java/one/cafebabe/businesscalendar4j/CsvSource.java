@@ -0,0 +1,313 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Canonical loader of a CSV configuration location, shared by the configurations loading the same normalized path or
+ * URL.<br>
+ * A load fetches and parses the location once and publishes the result to every configuration of the location. Loads
+ * requested while another load is in flight wait for it and share its result, and content whose checksum didn't
+ * change is not parsed again. Reloads are scheduled once per location, at the shortest requested interval.<br>
+ * With -DbusinessCalendar4j.csvCacheDir=&lt;directory&gt;, URLs are fetched under the lease of a {@link HolidayDataCache}
+ * in the directory, so that processes sharing the directory fetch a URL once per reload interval: a process reloading
+ * while the copy written by another process is younger than the interval reads the copy instead of fetching.
+ */
+final class CsvSource {
+    private static final Logger logger = Logger.getLogger();
+    private static final Map<String, Entry> registry = new HashMap<>();
+    private static final ReferenceQueue<CsvSource> queue = new ReferenceQueue<>();
+    /**
+     * age up to which the last load of a URL without scheduled reloads is shared with new configurations
+     */
+    private static final long SHARED_MAX_AGE = Duration.ofMinutes(1).toNanos();
+
+    private static final class Entry extends WeakReference<CsvSource> {
+        private final String key;
+
+        Entry(@NotNull CsvSource source) {
+            super(source, queue);
+            this.key = source.key;
+        }
+    }
+
+    /**
+     * result of a load
+     *
+     * @param layer        parsed rules, or null if the load failed
+     * @param sha256       checksum of the content, or null if the load failed
+     * @param messages     warnings
+     * @param warnings     number of parse warnings
+     * @param bytes        content length
+     * @param lastModified last modified time of the file, or -1
+     * @param nanos        time taken to load
+     * @param loadedAt     {@link System#nanoTime()} when loaded
+     */
+    record Loaded(@Nullable CsvConfiguration.Layer layer, @Nullable String sha256, @NotNull List<String> messages,
+                  int warnings, long bytes, long lastModified, long nanos, long loadedAt) {
+        boolean success() {
+            return layer != null;
+        }
+    }
+
+    private final String key;
+    /**
+     * copy of the content shared with other processes, or null
+     */
+    @Nullable
+    private final HolidayDataCache cache;
+    private final List<WeakReference<CsvConfiguration>> subscribers = new CopyOnWriteArrayList<>();
+    @Nullable
+    private CompletableFuture<Loaded> inFlight;
+    @Nullable
+    private volatile Loaded last;
+    private long reloadInterval = Long.MAX_VALUE;
+    private boolean reloadScheduled = false;
+
+    private CsvSource(@NotNull String key) {
+        this.key = key;
+        final String directory = System.getProperty("businessCalendar4j.csvCacheDir");
+        this.cache = directory == null || directory.isEmpty() || !key.contains("://") || key.startsWith("file:") ? null
+                : new HolidayDataCache(Path.of(directory), cacheFileName(key), Duration.ZERO);
+    }
+
+    /**
+     * @param key normalized URL
+     * @return name of the file holding the copy of the URL in the cache directory
+     */
+    @NotNull
+    static String cacheFileName(@NotNull String key) {
+        return "csv-" + HolidayDataCache.sha256(key.getBytes(StandardCharsets.UTF_8)).substring(0, 32) + ".csv";
+    }
+
+    /**
+     * Fetches the content of the URL, under the lease of the cache directory if configured
+     *
+     * @param fetcher fetches the content
+     * @return content fetched by this process, or by another process within the reload interval
+     * @throws IOException failed to fetch, or to acquire the lease
+     */
+    @NotNull
+    byte[] fetch(@NotNull HolidayDataCache.LeasedAction<byte[]> fetcher) throws IOException {
+        if (cache == null) {
+            return fetcher.run();
+        }
+        return cache.withLease(() -> {
+            final long maxAge;
+            synchronized (this) {
+                maxAge = reloadInterval;
+            }
+            final HolidayDataCache.Cached cached = cache.read(key);
+            if (cached != null && maxAge != Long.MAX_VALUE && Instant.now().isBefore(cached.fetchedAt().plusMillis(maxAge))) {
+                logger.debug(() -> key + " was fetched at " + cached.fetchedAt() + ", reading " + cache.data());
+                return cached.bytes();
+            }
+            final byte[] fetched = fetcher.run();
+            cache.write(key, fetched, Instant.now());
+            return fetched;
+        });
+    }
+
+    /**
+     * Returns the loader of the location, shared while any configuration of the location is alive
+     *
+     * @param key normalized path or URL
+     * @return loader
+     */
+    @NotNull
+    static synchronized CsvSource of(@NotNull String key) {
+        expunge();
+        final Entry entry = registry.get(key);
+        CsvSource source = entry != null ? entry.get() : null;
+        if (source == null) {
+            source = new CsvSource(key);
+            registry.put(key, new Entry(source));
+        }
+        return source;
+    }
+
+    /**
+     * @return number of locations alive, process-wide
+     */
+    static synchronized int registered() {
+        expunge();
+        return registry.size();
+    }
+
+    private static void expunge() {
+        Reference<? extends CsvSource> reference;
+        while ((reference = queue.poll()) != null) {
+            final Entry entry = (Entry) reference;
+            // the key may have been registered again with a new instance
+            registry.remove(entry.key, entry);
+        }
+    }
+
+    /**
+     * Adds a configuration to be published the results of subsequent loads
+     *
+     * @param configuration configuration
+     * @return the last successful load, or null
+     */
+    @Nullable
+    Loaded subscribe(@NotNull CsvConfiguration configuration) {
+        subscribers.add(new WeakReference<>(configuration));
+        return last;
+    }
+
+    /**
+     * Tests if a load of a URL can be shared with a new configuration: it should be younger than the reload interval,
+     * or than a minute without scheduled reloads, since the configuration would serve it until the next reload.
+     *
+     * @param loaded load
+     * @return true if the load is fresh
+     */
+    boolean isFresh(@NotNull Loaded loaded) {
+        final long interval;
+        synchronized (this) {
+            interval = reloadInterval;
+        }
+        final long maxAge = interval == Long.MAX_VALUE ? SHARED_MAX_AGE : TimeUnit.MILLISECONDS.toNanos(interval);
+        return System.nanoTime() - loaded.loadedAt() < maxAge;
+    }
+
+    /**
+     * Loads the location, or waits for the load in flight
+     *
+     * @param caller configuration requesting the load, which fetches and parses if no load is in flight
+     * @param join   false to load without waiting for the load in flight, like while resolving includes, where
+     *               waiting for a load which is resolving includes on another thread may never end
+     * @return warnings
+     */
+    @NotNull
+    List<String> load(@NotNull CsvConfiguration caller, boolean join) {
+        final CompletableFuture<Loaded> joined;
+        final CompletableFuture<Loaded> owned;
+        synchronized (this) {
+            joined = join ? inFlight : null;
+            owned = join && joined == null ? (inFlight = new CompletableFuture<>()) : null;
+        }
+        if (joined != null) {
+            try {
+                return joined.join().messages();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+        try {
+            final Loaded loaded = caller.load(last);
+            if (loaded.success()) {
+                last = loaded;
+            }
+            for (WeakReference<CsvConfiguration> reference : subscribers) {
+                final CsvConfiguration subscriber = reference.get();
+                if (subscriber == null) {
+                    subscribers.remove(reference);
+                } else {
+                    subscriber.loaded(loaded);
+                }
+            }
+            if (owned != null) {
+                owned.complete(loaded);
+            }
+            return loaded.messages();
+        } catch (RuntimeException e) {
+            if (owned != null) {
+                owned.completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            if (owned != null) {
+                synchronized (this) {
+                    if (inFlight == owned) {
+                        inFlight = null;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reloads the location periodically, on one daemon thread per location, while any configuration of the location is
+     * alive
+     *
+     * @param interval interval. the shortest interval requested is used
+     */
+    synchronized void scheduleReload(@NotNull Duration interval) {
+        reloadInterval = Math.min(reloadInterval, Math.max(1, interval.toMillis()));
+        if (reloadScheduled) {
+            return;
+        }
+        reloadScheduled = true;
+        final Thread thread = new Thread(() -> {
+            while (true) {
+                try {
+                    final long sleep;
+                    synchronized (this) {
+                        sleep = reloadInterval;
+                    }
+                    //noinspection BusyWait
+                    Thread.sleep(sleep);
+                    final CsvConfiguration subscriber = anySubscriber();
+                    if (subscriber == null) {
+                        logger.debug(() -> "stopped reloading " + key);
+                        return;
+                    }
+                    load(subscriber, true);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    logger.warn(() -> "failed to reload " + key, e);
+                }
+            }
+        }, "CsvSource " + key);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Nullable
+    private CsvConfiguration anySubscriber() {
+        for (WeakReference<CsvConfiguration> reference : subscribers) {
+            final CsvConfiguration subscriber = reference.get();
+            if (subscriber != null) {
+                return subscriber;
+            }
+            subscribers.remove(reference);
+        }
+        return null;
+    }
+}
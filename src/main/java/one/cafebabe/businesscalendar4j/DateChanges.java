@@ -0,0 +1,175 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Immutable set of dates whose results may have changed by reloads of a source.<br>
+ * Dates are held as ranges of epoch days, for rules on specific dates, and as predicates, for recurring rules like
+ * "every Sunday". The set may contain dates whose results didn't actually change, but never misses a changed date.
+ */
+final class DateChanges {
+    /**
+     * every date may have changed
+     */
+    static final DateChanges ALL = new DateChanges(true, new long[0], List.of());
+    /**
+     * nothing changed
+     */
+    static final DateChanges NONE = new DateChanges(false, new long[0], List.of());
+
+    private final boolean all;
+    /**
+     * sorted, non-overlapping pairs of first and last epoch days, inclusive
+     */
+    private final long[] ranges;
+    private final List<Predicate<LocalDate>> predicates;
+
+    private DateChanges(boolean all, @NotNull long[] ranges, @NotNull List<Predicate<LocalDate>> predicates) {
+        this.all = all;
+        this.ranges = ranges;
+        this.predicates = predicates;
+    }
+
+    /**
+     * @param ranges     pairs of first and last epoch days, inclusive
+     * @param predicates predicates matching changed dates
+     * @return changes
+     */
+    @NotNull
+    static DateChanges of(@NotNull long[] ranges, @NotNull List<Predicate<LocalDate>> predicates) {
+        if (ranges.length % 2 != 0) {
+            throw new IllegalArgumentException("ranges should be pairs of first and last epoch days");
+        }
+        return ranges.length == 0 && predicates.isEmpty() ? NONE : new DateChanges(false, merge(ranges), List.copyOf(predicates));
+    }
+
+    boolean all() {
+        return all;
+    }
+
+    boolean isEmpty() {
+        return this == NONE || (!all && ranges.length == 0 && predicates.isEmpty());
+    }
+
+    /**
+     * @param date date
+     * @return true if the result of the date may have changed
+     */
+    boolean contains(@NotNull LocalDate date) {
+        if (all) {
+            return true;
+        }
+        final long epochDay = date.toEpochDay();
+        final int range = lastRangeFrom(epochDay);
+        if (0 <= range && epochDay <= ranges[range * 2 + 1]) {
+            return true;
+        }
+        for (Predicate<LocalDate> predicate : predicates) {
+            if (predicate.test(date)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param fromInclusive first date
+     * @param toInclusive   last date
+     * @return true if any date in the range may have changed
+     */
+    boolean intersects(@NotNull LocalDate fromInclusive, @NotNull LocalDate toInclusive) {
+        if (all || !predicates.isEmpty()) {
+            // recurring rules are assumed to match some date in the range
+            return !isEmpty();
+        }
+        final long from = fromInclusive.toEpochDay();
+        final int range = lastRangeFrom(toInclusive.toEpochDay());
+        return 0 <= range && from <= ranges[range * 2 + 1];
+    }
+
+    /**
+     * @param epochDay epoch day
+     * @return index of the last range starting on or before the epoch day, or -1
+     */
+    private int lastRangeFrom(long epochDay) {
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (ranges[mid * 2] <= epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * @param ranges pairs of first and last epoch days, inclusive
+     * @return sorted, non-overlapping ranges
+     */
+    @NotNull
+    private static long[] merge(@NotNull long[] ranges) {
+        final Integer[] order = new Integer[ranges.length / 2];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> ranges[i * 2]));
+        final long[] merged = new long[ranges.length];
+        int length = 0;
+        for (int i : order) {
+            final long first = ranges[i * 2];
+            final long last = ranges[i * 2 + 1];
+            if (0 < length && first <= merged[length - 1] + 1) {
+                merged[length - 1] = Math.max(merged[length - 1], last);
+            } else {
+                merged[length++] = first;
+                merged[length++] = last;
+            }
+        }
+        return Arrays.copyOf(merged, length);
+    }
+
+    /**
+     * @param other changes
+     * @return changes containing the dates of both
+     */
+    @NotNull
+    DateChanges union(@NotNull DateChanges other) {
+        if (all || other.isEmpty()) {
+            return this;
+        }
+        if (other.all || isEmpty()) {
+            return other;
+        }
+        final long[] union = new long[ranges.length + other.ranges.length];
+        System.arraycopy(ranges, 0, union, 0, ranges.length);
+        System.arraycopy(other.ranges, 0, union, ranges.length, other.ranges.length);
+        final List<Predicate<LocalDate>> predicates = new ArrayList<>(this.predicates);
+        predicates.addAll(other.predicates);
+        return new DateChanges(false, merge(union), List.copyOf(predicates));
+    }
+}
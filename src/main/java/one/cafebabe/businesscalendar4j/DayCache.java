@@ -0,0 +1,190 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded per-date result cache keyed by epoch day.<br>
+ * The table is split into sets of {@link #WAYS} slots. A date can only be stored in its own set, and when the set is
+ * full an entry is evicted with the CLOCK algorithm within the set. Reads and writes are lock-free: a write that loses
+ * a race is simply not cached.<br>
+ * When any of the sources is reloaded, the entries of the dates changed by the reload are discarded, or the whole table
+ * if the changes are unknown.
+ */
+final class DayCache {
+    static final int WAYS = 8;
+
+    /**
+     * cached result of a date
+     *
+     * @param holidayKey holiday name key, or null on business days
+     * @param slots      business hour slots, empty on holidays
+     */
+    record DayResult(@Nullable String holidayKey, @NotNull List<BusinessHourSlot> slots) {
+    }
+
+    private static final class Node {
+        final long epochDay;
+        final DayResult result;
+        // CLOCK reference bit. Races are harmless, it's only a hint for eviction
+        boolean referenced = true;
+
+        Node(long epochDay, DayResult result) {
+            this.epochDay = epochDay;
+            this.result = result;
+        }
+    }
+
+    private static final class Table {
+        final long[] versions;
+        final AtomicReferenceArray<Node> slots;
+        final int[] hands;
+
+        Table(long[] versions, int capacity) {
+            this.versions = versions;
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.hands = new int[capacity / WAYS];
+        }
+    }
+
+    private final int capacity;
+    private final int setMask;
+    private final Versioned[] sources;
+    private final Function<LocalDate, DayResult> loader;
+    private final BusinessCalendarMetrics metrics;
+    private volatile Table table;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param maximumSize maximum number of dates to be cached. rounded up to a power of two, minimum {@link #WAYS}
+     * @param sources     sources to watch for reloads
+     * @param loader      evaluates the rules on cache miss
+     * @param metrics     metrics
+     */
+    DayCache(int maximumSize, @NotNull List<Versioned> sources, @NotNull Function<LocalDate, DayResult> loader,
+             @NotNull BusinessCalendarMetrics metrics) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize should be greater than 0, provided: " + maximumSize);
+        }
+        this.capacity = Math.max(WAYS, Integer.highestOneBit(Math.max(1, maximumSize - 1)) << 1);
+        this.setMask = capacity / WAYS - 1;
+        this.sources = sources.toArray(new Versioned[0]);
+        this.loader = loader;
+        this.metrics = metrics;
+        this.table = new Table(Versioned.versions(this.sources), capacity);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    @NotNull
+    DayResult get(@NotNull LocalDate date) {
+        Table current = table;
+        if (Versioned.changed(sources, current.versions)) {
+            current = invalidate(current);
+        }
+        final long epochDay = date.toEpochDay();
+        final int base = set(epochDay) * WAYS;
+        final AtomicReferenceArray<Node> slots = current.slots;
+        for (int i = 0; i < WAYS; i++) {
+            final Node node = slots.get(base + i);
+            if (node != null && node.epochDay == epochDay) {
+                node.referenced = true;
+                hits.increment();
+                metrics.cacheAccess(BusinessCalendarMetrics.Cache.RESULT, true);
+                return node.result;
+            }
+        }
+        misses.increment();
+        metrics.cacheAccess(BusinessCalendarMetrics.Cache.RESULT, false);
+        final DayResult result = loader.apply(date);
+        put(current, base, new Node(epochDay, result));
+        return result;
+    }
+
+    /**
+     * @param current current table
+     * @return new table holding the entries of the current table which are not changed by reloads
+     */
+    @NotNull
+    private Table invalidate(@NotNull Table current) {
+        final Table updated = new Table(Versioned.versions(sources), capacity);
+        final DateChanges changes = Versioned.changesSince(sources, current.versions);
+        if (!changes.all()) {
+            for (int i = 0; i < capacity; i++) {
+                final Node node = current.slots.get(i);
+                if (node != null && !changes.contains(LocalDate.ofEpochDay(node.epochDay))) {
+                    updated.slots.set(i, node);
+                }
+            }
+        }
+        table = updated;
+        invalidations.increment();
+        return updated;
+    }
+
+    private void put(Table current, int base, Node node) {
+        final AtomicReferenceArray<Node> slots = current.slots;
+        for (int i = 0; i < WAYS; i++) {
+            if (slots.get(base + i) == null && slots.compareAndSet(base + i, null, node)) {
+                return;
+            }
+        }
+        // CLOCK: clear reference bits until an entry which has not been referenced since the last sweep is found
+        final int set = base / WAYS;
+        for (int i = 0; i < WAYS * 2; i++) {
+            final int hand = current.hands[set];
+            current.hands[set] = (hand + 1) % WAYS;
+            final Node victim = slots.get(base + hand);
+            if (victim == null) {
+                slots.compareAndSet(base + hand, null, node);
+                return;
+            }
+            if (victim.referenced) {
+                victim.referenced = false;
+            } else {
+                if (slots.compareAndSet(base + hand, victim, node)) {
+                    evictions.increment();
+                }
+                return;
+            }
+        }
+    }
+
+    private int set(long epochDay) {
+        // spread consecutive days over the sets
+        long h = epochDay * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & setMask;
+    }
+
+    @NotNull
+    CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), invalidations.sum());
+    }
+}
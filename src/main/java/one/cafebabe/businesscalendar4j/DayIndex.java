@@ -0,0 +1,326 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Precompiled holiday and business hours of every day in a range of years.<br>
+ * Each year is a segment of 4 bytes per day, held in a heap or a direct {@link ByteBuffer}:
+ * <pre>
+ * bits 31-15: id of the holiday name + 1, 0 on business days
+ * bits 14-0 : id of the business hour slots template
+ * </pre>
+ * Holiday names and slot templates are kept on heap as small tables of the distinct names, interned by
+ * {@link HolidayMap#intern(String)}, and lists of business hours of the index. A segment is recompiled on the next
+ * query when the version of any of the sources changes. Only the dates changed by the reload are evaluated again, and
+ * segments of years without changed dates are kept as is.<br>
+ * Direct buffers are freed by the garbage collector like any other object, once the index and the replaced segments are
+ * unreachable. Off-heap memory is accounted until the index is closed or collected.
+ */
+final class DayIndex {
+    static final int NOT_INDEXED = -1;
+    static final int BYTES_PER_DAY = 4;
+    private static final int TEMPLATE_BITS = 15;
+    private static final int MAX_TEMPLATES = 1 << TEMPLATE_BITS;
+    private static final int MAX_NAMES = (1 << (Integer.SIZE - TEMPLATE_BITS)) - 1;
+
+    private static final Logger logger = Logger.getLogger();
+    private static final Cleaner cleaner = Cleaner.create();
+    private static final AtomicLong offHeapBytes = new AtomicLong();
+    private static final LongAdder leaks = new LongAdder();
+
+    /**
+     * resources tracked by the cleaner. must not refer to the index itself
+     */
+    private static final class State implements Runnable {
+        private volatile boolean closed = false;
+        private long offHeapBytes = 0;
+
+        @Override
+        public void run() {
+            if (!closed) {
+                // the index became unreachable without close()
+                release();
+                leaks.increment();
+                logger.debug(() -> "off-heap index was collected without close()");
+            }
+        }
+
+        synchronized void allocate(long bytes) {
+            offHeapBytes += bytes;
+            DayIndex.offHeapBytes.addAndGet(bytes);
+        }
+
+        synchronized void release() {
+            closed = true;
+            DayIndex.offHeapBytes.addAndGet(-offHeapBytes);
+            offHeapBytes = 0;
+        }
+    }
+
+    /**
+     * @param versions versions of the sources the segment was compiled with
+     * @param days     packed entries
+     */
+    private record Segment(@NotNull long[] versions, @NotNull ByteBuffer days) {
+    }
+
+    private final int fromYear;
+    private final int toYear;
+    private final boolean offHeap;
+    private final Versioned[] sources;
+    private final Function<LocalDate, DayCache.DayResult> loader;
+    private final BusinessCalendarMetrics metrics;
+    private final AtomicReferenceArray<Segment> segments;
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private volatile String[] names = new String[16];
+    private final Map<List<BusinessHourFromTo>, Integer> templateIds = new HashMap<>();
+    private volatile BusinessHourFromTo[][] templates = new BusinessHourFromTo[16][];
+    private final State state = new State();
+    /**
+     * tracks off-heap indexes only, null on heap
+     */
+    @Nullable
+    private final Cleaner.Cleanable cleanable;
+
+    /**
+     * @param fromYear first year to be indexed
+     * @param toYear   last year to be indexed
+     * @param offHeap  true to store the index in direct byte buffers
+     * @param sources  sources to watch for reloads
+     * @param loader   evaluates the rules
+     * @param metrics  notified of lookups, hits on up-to-date segments and misses on recompiled or out of range dates
+     */
+    DayIndex(int fromYear, int toYear, boolean offHeap, @NotNull List<Versioned> sources,
+             @NotNull Function<LocalDate, DayCache.DayResult> loader, @NotNull BusinessCalendarMetrics metrics) {
+        if (toYear < fromYear) {
+            throw new IllegalArgumentException("toYear should be equal to or greater than fromYear, provided: " + fromYear + "-" + toYear);
+        }
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+        this.offHeap = offHeap;
+        this.sources = sources.toArray(new Versioned[0]);
+        this.loader = loader;
+        this.metrics = metrics;
+        this.segments = new AtomicReferenceArray<>(toYear - fromYear + 1);
+        this.cleanable = offHeap ? cleaner.register(this, state) : null;
+        for (int year = fromYear; year <= toYear; year++) {
+            compile(year);
+        }
+    }
+
+    /**
+     * @return off-heap bytes held by indexes which are not closed yet, process-wide
+     */
+    static long offHeapBytes() {
+        return offHeapBytes.get();
+    }
+
+    /**
+     * @return number of off-heap indexes collected without being closed, process-wide
+     */
+    static long leaks() {
+        return leaks.sum();
+    }
+
+    /**
+     * @param date date
+     * @return packed entry of the date, or {@link #NOT_INDEXED} if the date is out of the range
+     * @throws IllegalStateException the index is already closed
+     */
+    int entry(@NotNull LocalDate date) {
+        if (state.closed) {
+            throw new IllegalStateException("BusinessCalendar is already closed");
+        }
+        final int year = date.getYear();
+        if (year < fromYear || toYear < year) {
+            metrics.cacheAccess(BusinessCalendarMetrics.Cache.INDEX, false);
+            return NOT_INDEXED;
+        }
+        Segment segment = segments.get(year - fromYear);
+        if (segment == null) {
+            // closed concurrently
+            throw new IllegalStateException("BusinessCalendar is already closed");
+        }
+        if (Versioned.changed(sources, segment.versions)) {
+            metrics.cacheAccess(BusinessCalendarMetrics.Cache.INDEX, false);
+            segment = compile(year);
+        } else {
+            metrics.cacheAccess(BusinessCalendarMetrics.Cache.INDEX, true);
+        }
+        return segment.days.getInt((date.getDayOfYear() - 1) * BYTES_PER_DAY);
+    }
+
+    /**
+     * @param entry packed entry of the date
+     * @return holiday name of the date, or null on business days
+     */
+    @Nullable
+    String holidayKey(int entry) {
+        final int nameId = entry >>> TEMPLATE_BITS;
+        return nameId == 0 ? null : names[nameId - 1];
+    }
+
+    /**
+     * @param entry packed entry of the date
+     * @param date  date
+     * @return business hour slots of the date
+     */
+    @NotNull
+    List<BusinessHourSlot> slots(int entry, @NotNull LocalDate date) {
+        final BusinessHourFromTo[] template = templates[entry & (MAX_TEMPLATES - 1)];
+        if (template.length == 0) {
+            return Collections.emptyList();
+        }
+        final BusinessHourSlot[] slots = new BusinessHourSlot[template.length];
+        for (int i = 0; i < slots.length; i++) {
+            final BusinessHourFromTo fromTo = template[i];
+            slots[i] = new BusinessHourSlot(date, fromTo.from(), fromTo.to());
+        }
+        return List.of(slots);
+    }
+
+    /**
+     * Compiles the segment of the year. On reloads, only the dates changed by the reloads are evaluated again and the
+     * segment is kept as is if no date of the year changed.
+     *
+     * @param year year
+     * @return compiled segment
+     */
+    @NotNull
+    private synchronized Segment compile(int year) {
+        if (state.closed) {
+            throw new IllegalStateException("BusinessCalendar is already closed");
+        }
+        final long[] versions = Versioned.versions(sources);
+        final Segment current = segments.get(year - fromYear);
+        if (current != null && Arrays.equals(current.versions, versions)) {
+            return current;
+        }
+        final int days = Year.of(year).length();
+        final DateChanges changes = current == null ? DateChanges.ALL : Versioned.changesSince(sources, current.versions);
+        if (current != null && !changes.intersects(LocalDate.ofYearDay(year, 1), LocalDate.ofYearDay(year, days))) {
+            final Segment segment = new Segment(versions, current.days);
+            segments.set(year - fromYear, segment);
+            return segment;
+        }
+        final ByteBuffer buffer;
+        if (offHeap) {
+            buffer = ByteBuffer.allocateDirect(days * BYTES_PER_DAY);
+            // a replaced segment is freed once readers drop it
+            state.allocate(current == null ? buffer.capacity() : 0);
+        } else {
+            buffer = ByteBuffer.allocate(days * BYTES_PER_DAY);
+        }
+        LocalDate date = LocalDate.ofYearDay(year, 1);
+        for (int i = 0; i < days; i++) {
+            if (current == null || changes.contains(date)) {
+                final DayCache.DayResult result = loader.apply(date);
+                final int nameId = result.holidayKey() == null ? 0 : nameId(result.holidayKey()) + 1;
+                buffer.putInt(i * BYTES_PER_DAY, nameId << TEMPLATE_BITS | templateId(result.slots()));
+            } else {
+                buffer.putInt(i * BYTES_PER_DAY, current.days.getInt(i * BYTES_PER_DAY));
+            }
+            date = date.plusDays(1);
+        }
+        final Segment segment = new Segment(versions, buffer);
+        segments.set(year - fromYear, segment);
+        return segment;
+    }
+
+    private int nameId(@NotNull String name) {
+        Integer id = nameIds.get(name);
+        if (id == null) {
+            id = nameIds.size();
+            if (id == MAX_NAMES) {
+                throw new IllegalStateException("too many distinct holiday names: " + MAX_NAMES);
+            }
+            final String[] current = names;
+            final String[] updated = id < current.length ? current : Arrays.copyOf(current, current.length * 2);
+            updated[id] = HolidayMap.intern(name);
+            // volatile write, publishing the new name
+            names = updated;
+            nameIds.put(name, id);
+        }
+        return id;
+    }
+
+    private int templateId(@NotNull List<BusinessHourSlot> slots) {
+        // slots start on the date and end on the same date, or at midnight of the next date
+        final List<BusinessHourFromTo> template = new ArrayList<>(slots.size());
+        for (BusinessHourSlot slot : slots) {
+            template.add(new BusinessHourFromTo(slot.from().toLocalTime(), slot.to().toLocalTime()));
+        }
+        Integer id = templateIds.get(template);
+        if (id == null) {
+            id = templateIds.size();
+            if (id == MAX_TEMPLATES) {
+                throw new IllegalStateException("too many distinct business hours: " + MAX_TEMPLATES);
+            }
+            final BusinessHourFromTo[][] current = templates;
+            final BusinessHourFromTo[][] updated = id < current.length ? current : Arrays.copyOf(current, current.length * 2);
+            updated[id] = template.toArray(new BusinessHourFromTo[0]);
+            // volatile write, publishing the new template
+            templates = updated;
+            templateIds.put(template, id);
+        }
+        return id;
+    }
+
+    /**
+     * @return bytes held by the segments, on heap or off-heap
+     */
+    long estimatedBytes() {
+        long bytes = 0;
+        for (int year = fromYear; year <= toYear; year++) {
+            bytes += (long) Year.of(year).length() * BYTES_PER_DAY;
+        }
+        return bytes;
+    }
+
+    /**
+     * Drops the segments and stops accounting their off-heap memory. Direct buffers are not freed here but by the
+     * garbage collector, once the readers still holding a segment are done with it.
+     */
+    synchronized void close() {
+        if (!state.closed) {
+            state.release();
+            for (int i = 0; i < segments.length(); i++) {
+                segments.set(i, null);
+            }
+            if (cleanable != null) {
+                cleanable.clean();
+            }
+        }
+    }
+}
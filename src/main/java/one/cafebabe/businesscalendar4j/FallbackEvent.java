@@ -0,0 +1,48 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event emitted when a remote resource couldn't be fetched and a fallback was used. Disabled by default.
+ */
+@Name("one.cafebabe.businesscalendar4j.Fallback")
+@Label("Calendar Fetch Fallback")
+@Category({"businessCalendar4j"})
+@Description("Remote holiday / business hours configuration couldn't be fetched")
+@Enabled(false)
+@StackTrace(false)
+final class FallbackEvent extends Event {
+    @Label("Source")
+    String source;
+
+    @Label("Fallback")
+    String fallback;
+
+    @Label("Reason")
+    String reason;
+
+    static void emit(String source, String fallback, Throwable reason) {
+        final FallbackEvent event = new FallbackEvent();
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.fallback = fallback;
+            event.reason = String.valueOf(reason);
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Holidays of one 400-year Gregorian cycle, for calendars made only of rules on days of week, months and days of month.
+ * 400 years are 146,097 days, a whole number of weeks, so such rules give the same results for a date and the date 400
+ * years later.<br>
+ * Holidays are held as a bit per day, with the number of holidays before every 64 days and the ids of the holiday
+ * names in date order. Looking up a date, and counting holidays between any two dates, take a few arithmetic operations.
+ */
+final class GregorianCycle {
+    /**
+     * days in 400 years
+     */
+    static final int DAYS = 146_097;
+
+    /**
+     * bit set on holidays, from epoch day 0 (1970-01-01) to DAYS - 1
+     */
+    private final long[] holidays = new long[DAYS / 64 + 1];
+    /**
+     * number of holidays before each word of holidays
+     */
+    private final int[] holidaysBefore = new int[holidays.length];
+    /**
+     * ids of the holiday names in names, in date order
+     */
+    private final short[] nameIds;
+    /**
+     * distinct holiday names of the cycle, interned by {@link HolidayMap#intern(String)}
+     */
+    private final String[] names;
+
+    private GregorianCycle(@NotNull Function<LocalDate, String> holiday) {
+        final short[] nameIds = new short[DAYS];
+        final HolidayMap.Names names = new HolidayMap.Names();
+        int count = 0;
+        LocalDate date = LocalDate.ofEpochDay(0);
+        for (int day = 0; day < DAYS; day++) {
+            if (day % 64 == 0) {
+                holidaysBefore[day / 64] = count;
+            }
+            final String key = holiday.apply(date);
+            if (key != null) {
+                holidays[day / 64] |= 1L << (day % 64);
+                nameIds[count++] = names.id(key);
+            }
+            date = date.plusDays(1);
+        }
+        this.nameIds = Arrays.copyOf(nameIds, count);
+        this.names = names.toArray();
+    }
+
+    /**
+     * Evaluates the rules on every day of a cycle
+     *
+     * @param holiday holiday rules repeating every 400 years
+     * @return compiled cycle
+     */
+    @NotNull
+    static GregorianCycle of(@NotNull Function<LocalDate, String> holiday) {
+        return new GregorianCycle(holiday);
+    }
+
+    /**
+     * @param epochDay epoch day
+     * @return holiday name of the date, or null on business days
+     */
+    @Nullable
+    String holidayKey(long epochDay) {
+        final int day = Math.floorMod(epochDay, DAYS);
+        if ((holidays[day / 64] & 1L << (day % 64)) == 0) {
+            return null;
+        }
+        return names[nameIds[rank(day)] & 0xffff];
+    }
+
+    /**
+     * @param fromEpochDay first epoch day, inclusive
+     * @param toEpochDay   last epoch day, inclusive
+     * @return number of business days
+     */
+    long countBusinessDays(long fromEpochDay, long toEpochDay) {
+        if (toEpochDay < fromEpochDay) {
+            return 0;
+        }
+        return toEpochDay - fromEpochDay + 1 - (holidaysBefore(toEpochDay + 1) - holidaysBefore(fromEpochDay));
+    }
+
+    /**
+     * @param epochDay epoch day
+     * @return number of holidays from epoch day 0 to the epoch day, exclusive. negative for negative epoch days
+     */
+    private long holidaysBefore(long epochDay) {
+        return Math.floorDiv(epochDay, DAYS) * nameIds.length + rank(Math.floorMod(epochDay, DAYS));
+    }
+
+    /**
+     * @param day day in the cycle, 0 to DAYS
+     * @return number of holidays in the cycle before the day
+     */
+    private int rank(int day) {
+        return holidaysBefore[day / 64] + Long.bitCount(holidays[day / 64] & ((1L << (day % 64)) - 1));
+    }
+
+    /**
+     * @return approximate heap footprint
+     */
+    long estimatedBytes() {
+        return 64 + holidays.length * 12L + nameIds.length * 2L + names.length * 4L;
+    }
+}
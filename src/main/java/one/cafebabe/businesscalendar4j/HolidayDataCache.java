@@ -0,0 +1,305 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local copy of remote holiday data, persisted with the source URL, a SHA-256 checksum and the fetch timestamp, so
+ * that restarts don't need to fetch the data again, and the latest fetched data is used while offline.<br>
+ * Files are replaced atomically. A copy whose checksum doesn't match, like one being written, is ignored.<br>
+ * Processes sharing the directory fetch under a lease, an exclusive lock of a lock file, so that one process fetches
+ * and writes a new copy while the others wait and then read it. In shared mode, copies written by other processes are
+ * picked up by watching the directory.
+ */
+final class HolidayDataCache {
+    private static final Logger logger = Logger.getLogger();
+
+    /**
+     * a validated copy
+     *
+     * @param bytes     content
+     * @param sha256    checksum of the content
+     * @param fetchedAt fetch timestamp
+     */
+    record Cached(@NotNull byte[] bytes, @NotNull String sha256, @NotNull Instant fetchedAt) {
+    }
+
+    /**
+     * action run under the lease
+     *
+     * @param <T> result type
+     */
+    @FunctionalInterface
+    interface LeasedAction<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * file locks are held by the process, so threads of the process are serialized by these locks
+     */
+    private static final Map<Path, ReentrantLock> localLocks = new ConcurrentHashMap<>();
+
+    private final Path data;
+    private final Path metadata;
+    private final Path lock;
+    private final Duration maxAge;
+    private final boolean shared;
+
+    /**
+     * @param directory cache directory, created if it doesn't exist
+     * @param fileName  file name of the copy
+     * @param maxAge    age after which the copy is fetched again
+     */
+    HolidayDataCache(@NotNull Path directory, @NotNull String fileName, @NotNull Duration maxAge) {
+        this(directory, fileName, maxAge, false);
+    }
+
+    /**
+     * @param directory cache directory, created if it doesn't exist
+     * @param fileName  file name of the copy
+     * @param maxAge    age after which the copy is fetched again
+     * @param shared    true if the directory is shared with other processes, and their copies should be watched
+     */
+    HolidayDataCache(@NotNull Path directory, @NotNull String fileName, @NotNull Duration maxAge, boolean shared) {
+        this.data = directory.resolve(fileName);
+        this.metadata = directory.resolve(fileName + ".properties");
+        this.lock = directory.resolve(fileName + ".lock");
+        this.maxAge = maxAge;
+        this.shared = shared;
+    }
+
+    /**
+     * Returns the cache configured with -DSYUKUJITSU_CACHE_DIR=&lt;directory&gt;,
+     * -DSYUKUJITSU_CACHE_MAX_AGE=&lt;ISO-8601 duration&gt; and -DSYUKUJITSU_CACHE_SHARED=true.
+     *
+     * @param defaultMaxAge max age used unless specified
+     * @return cache, or null if no cache directory is specified
+     */
+    @Nullable
+    static HolidayDataCache fromSystemProperties(@NotNull Duration defaultMaxAge) {
+        final String directory = System.getProperty("SYUKUJITSU_CACHE_DIR");
+        if (directory == null || directory.isEmpty()) {
+            return null;
+        }
+        Duration maxAge = defaultMaxAge;
+        final String maxAgeProperty = System.getProperty("SYUKUJITSU_CACHE_MAX_AGE");
+        if (maxAgeProperty != null) {
+            try {
+                maxAge = Duration.parse(maxAgeProperty);
+            } catch (DateTimeParseException e) {
+                logger.warn(() -> "invalid SYUKUJITSU_CACHE_MAX_AGE: " + maxAgeProperty + ", using " + defaultMaxAge);
+            }
+        }
+        return new HolidayDataCache(Path.of(directory), "syukujitsu.csv", maxAge,
+                Boolean.getBoolean("SYUKUJITSU_CACHE_SHARED"));
+    }
+
+    @NotNull
+    Path data() {
+        return data;
+    }
+
+    boolean shared() {
+        return shared;
+    }
+
+    /**
+     * Runs the action holding the lease, waiting for the other process or thread holding it
+     *
+     * @param action action, typically reading a fresh copy, or fetching and writing a new one
+     * @param <T>    result type
+     * @return result of the action
+     * @throws IOException failed to acquire the lease, or thrown by the action
+     */
+    <T> T withLease(@NotNull LeasedAction<T> action) throws IOException {
+        final ReentrantLock localLock = localLocks.computeIfAbsent(lock.toAbsolutePath().normalize(), k -> new ReentrantLock());
+        localLock.lock();
+        try {
+            Files.createDirectories(lock.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(lock, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                final FileLock fileLock = channel.lock();
+                try {
+                    return action.run();
+                } finally {
+                    fileLock.release();
+                }
+            }
+        } finally {
+            localLock.unlock();
+        }
+    }
+
+    /**
+     * Watches the directory on a daemon thread, and calls the listener when a copy is written by this or another process
+     *
+     * @param listener listener
+     * @throws IOException failed to watch the directory
+     */
+    void watch(@NotNull Runnable listener) throws IOException {
+        final Path directory = data.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final WatchService watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        final String metadataFileName = metadata.getFileName().toString();
+        final Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    final WatchKey key = watchService.take();
+                    boolean written = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        // the metadata is moved after the data
+                        written |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                                || metadataFileName.equals(event.context().toString());
+                    }
+                    if (written) {
+                        listener.run();
+                    }
+                    key.reset();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException ignore) {
+            } catch (RuntimeException e) {
+                logger.warn(() -> "stopped watching " + directory, e);
+            }
+        }, "HolidayDataCache " + directory);
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * @param url source URL
+     * @return validated copy fetched from the URL, or null
+     */
+    @Nullable
+    Cached read(@NotNull String url) {
+        if (!Files.exists(metadata) || !Files.exists(data)) {
+            return null;
+        }
+        try {
+            final Properties properties = new Properties();
+            try (InputStream is = Files.newInputStream(metadata)) {
+                properties.load(is);
+            }
+            final byte[] bytes = Files.readAllBytes(data);
+            if (!url.equals(properties.getProperty("url"))) {
+                logger.debug(() -> data + " was fetched from " + properties.getProperty("url"));
+                return null;
+            }
+            if (!sha256(bytes).equals(properties.getProperty("sha256"))) {
+                logger.warn(() -> "checksum mismatch: " + data);
+                return null;
+            }
+            return new Cached(bytes, properties.getProperty("sha256"), Instant.parse(properties.getProperty("fetchedAt")));
+        } catch (IOException | RuntimeException e) {
+            logger.warn(() -> "failed to read " + data, e);
+            return null;
+        }
+    }
+
+    /**
+     * Persists a validated copy
+     *
+     * @param url       source URL
+     * @param bytes     content
+     * @param fetchedAt fetch timestamp
+     */
+    void write(@NotNull String url, @NotNull byte[] bytes, @NotNull Instant fetchedAt) {
+        try {
+            Files.createDirectories(data.getParent());
+            final Properties properties = new Properties();
+            properties.setProperty("url", url);
+            properties.setProperty("sha256", sha256(bytes));
+            properties.setProperty("fetchedAt", fetchedAt.toString());
+            final Path dataTemp = Files.createTempFile(data.getParent(), data.getFileName().toString(), ".tmp");
+            final Path metadataTemp = Files.createTempFile(data.getParent(), metadata.getFileName().toString(), ".tmp");
+            Files.write(dataTemp, bytes);
+            try (OutputStream os = Files.newOutputStream(metadataTemp)) {
+                properties.store(os, null);
+            }
+            move(dataTemp, data);
+            move(metadataTemp, metadata);
+        } catch (IOException e) {
+            logger.warn(() -> "failed to write " + data, e);
+        }
+    }
+
+    /**
+     * Replaces the target atomically, or just replaces it on file systems not supporting atomic moves
+     *
+     * @param source file to be moved
+     * @param target file to be replaced
+     * @throws IOException failed to move
+     */
+    static void move(@NotNull Path source, @NotNull Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @param cached copy
+     * @return true if the copy is younger than the max age
+     */
+    boolean isFresh(@NotNull Cached cached) {
+        return 0 < remainingMillis(cached);
+    }
+
+    /**
+     * @param cached copy
+     * @return milliseconds until the copy gets older than the max age, 0 if it's already older
+     */
+    long remainingMillis(@NotNull Cached cached) {
+        return Math.max(0, Duration.between(Instant.now(), cached.fetchedAt().plus(maxAge)).toMillis());
+    }
+
+    @NotNull
+    static String sha256(@NotNull byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
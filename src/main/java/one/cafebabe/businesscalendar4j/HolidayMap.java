@@ -15,24 +15,248 @@
  */
 package one.cafebabe.businesscalendar4j;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
 import java.time.LocalDate;
-import java.util.TreeMap;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.WeakHashMap;
 import java.util.function.Function;
 
-class HolidayMap implements Function<LocalDate, String> {
-    /* intentionally package private for the test purpose  */
-    TreeMap<LocalDate, String> holidayMap;
+/**
+ * Immutable date to holiday name table.<br>
+ * Dates are kept in a sorted int[] of epoch days with a parallel short[] of ids into the table's own array of distinct
+ * names. The names themselves are interned process-wide, so that every table holding "japanese.元日" refers to the same
+ * string. Interned names are held weakly and collected once no table refers to them.
+ */
+final class HolidayMap implements Function<LocalDate, String> {
+    static final HolidayMap EMPTY = new HolidayMap(new int[0], new short[0], new String[0]);
+
+    /**
+     * size of an object header and of an array header, assuming compressed oops
+     */
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+
+    /**
+     * names shared process-wide, keyed and referred to weakly
+     */
+    private static final Map<String, WeakReference<String>> interned = new WeakHashMap<>();
+
+    private final int[] epochDays;
+    private final short[] nameIds;
+    private final String[] names;
+
+    private HolidayMap(int[] epochDays, short[] nameIds, String[] names) {
+        this.epochDays = epochDays;
+        this.nameIds = nameIds;
+        this.names = names;
+    }
+
+    /**
+     * @param name holiday name
+     * @return the instance shared by the tables, cycles and indexes holding an equal name
+     */
+    @NotNull
+    static String intern(@NotNull String name) {
+        synchronized (interned) {
+            final WeakReference<String> reference = interned.get(name);
+            final String shared = reference != null ? reference.get() : null;
+            if (shared != null) {
+                return shared;
+            }
+            interned.put(name, new WeakReference<>(name));
+            return name;
+        }
+    }
+
+    /**
+     * @param name holiday name
+     * @return true if a table, cycle or index still refers to the name
+     */
+    static boolean interned(@NotNull String name) {
+        synchronized (interned) {
+            final WeakReference<String> reference = interned.get(name);
+            return reference != null && reference.get() != null;
+        }
+    }
+
+    /**
+     * Dictionary of the distinct holiday names of one table or cycle, numbered in order of first appearance, holding the
+     * interned names. Not thread-safe, filled while the owner is built.
+     */
+    static final class Names {
+        private static final int MAX_NAMES = 1 << 16;
+
+        private final Map<String, Short> ids = new HashMap<>();
+        private String[] names = new String[16];
+
+        /**
+         * @param name holiday name
+         * @return id of the name
+         * @throws IllegalStateException more than 65,536 distinct names
+         */
+        short id(@NotNull String name) {
+            final Short id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            final int newId = ids.size();
+            if (newId == MAX_NAMES) {
+                throw new IllegalStateException("too many distinct holiday names: " + MAX_NAMES);
+            }
+            if (newId == names.length) {
+                names = Arrays.copyOf(names, names.length * 2);
+            }
+            names[newId] = intern(name);
+            ids.put(name, (short) newId);
+            return (short) newId;
+        }
 
-    HolidayMap(){
-        holidayMap = new TreeMap<>();
+        /**
+         * @return names indexed by id
+         */
+        @NotNull
+        String[] toArray() {
+            return Arrays.copyOf(names, ids.size());
+        }
+    }
+
+    /**
+     * @param map holidays
+     * @return table holding the specified holidays
+     */
+    @NotNull
+    static HolidayMap of(@NotNull SortedMap<LocalDate, String> map) {
+        final int[] epochDays = new int[map.size()];
+        final short[] nameIds = new short[map.size()];
+        final Names names = new Names();
+        int i = 0;
+        for (Map.Entry<LocalDate, String> entry : map.entrySet()) {
+            epochDays[i] = Math.toIntExact(entry.getKey().toEpochDay());
+            nameIds[i] = names.id(entry.getValue());
+            i++;
+        }
+        return new HolidayMap(epochDays, nameIds, names.toArray());
     }
 
     @Override
-    public String apply(LocalDate localDate) {
-        return holidayMap.get(localDate);
+    @Nullable
+    public String apply(@NotNull LocalDate localDate) {
+        final int index = indexOf(localDate);
+        return index < 0 ? null : names[nameIds[index] & 0xffff];
+    }
+
+    boolean containsKey(@NotNull LocalDate date) {
+        return 0 <= indexOf(date);
+    }
+
+    private int indexOf(@NotNull LocalDate date) {
+        final long epochDay = date.toEpochDay();
+        if (epochDay < Integer.MIN_VALUE || Integer.MAX_VALUE < epochDay) {
+            return -1;
+        }
+        return Arrays.binarySearch(epochDays, (int) epochDay);
+    }
+
+    /**
+     * @return the first date
+     * @throws NoSuchElementException the table is empty
+     */
+    @NotNull
+    LocalDate firstKey() {
+        if (epochDays.length == 0) {
+            throw new NoSuchElementException();
+        }
+        return LocalDate.ofEpochDay(epochDays[0]);
+    }
+
+    /**
+     * @return the last date
+     * @throws NoSuchElementException the table is empty
+     */
+    @NotNull
+    LocalDate lastKey() {
+        return LocalDate.ofEpochDay(lastEpochDay());
+    }
+
+    /**
+     * @return epoch day of the last date
+     * @throws NoSuchElementException the table is empty
+     */
+    long lastEpochDay() {
+        if (epochDays.length == 0) {
+            throw new NoSuchElementException();
+        }
+        return epochDays[epochDays.length - 1];
+    }
+
+    /**
+     * @param fromInclusive low endpoint (inclusive)
+     * @param toExclusive   high endpoint (exclusive)
+     * @return a table holding the holidays in the specified range
+     */
+    @NotNull
+    HolidayMap subMap(@NotNull LocalDate fromInclusive, @NotNull LocalDate toExclusive) {
+        final int from = insertionPoint(Math.toIntExact(fromInclusive.toEpochDay()));
+        final int to = Math.max(from, insertionPoint(Math.toIntExact(toExclusive.toEpochDay())));
+        return new HolidayMap(Arrays.copyOfRange(epochDays, from, to), Arrays.copyOfRange(nameIds, from, to), names);
+    }
+
+    private int insertionPoint(int epochDay) {
+        final int index = Arrays.binarySearch(epochDays, epochDay);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    /**
+     * @param other table
+     * @return sorted epoch days whose holiday names differ between this table and the other
+     */
+    @NotNull
+    int[] differences(@NotNull HolidayMap other) {
+        final int[] differences = new int[epochDays.length + other.epochDays.length];
+        int length = 0;
+        int i = 0;
+        int j = 0;
+        while (i < epochDays.length || j < other.epochDays.length) {
+            if (j == other.epochDays.length || (i < epochDays.length && epochDays[i] < other.epochDays[j])) {
+                differences[length++] = epochDays[i++];
+            } else if (i == epochDays.length || other.epochDays[j] < epochDays[i]) {
+                differences[length++] = other.epochDays[j++];
+            } else {
+                if (!names[nameIds[i] & 0xffff].equals(other.names[other.nameIds[j] & 0xffff])) {
+                    differences[length++] = epochDays[i];
+                }
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(differences, length);
+    }
+
+    int size() {
+        return epochDays.length;
+    }
+
+    /**
+     * Returns the approximate heap footprint of this table. The name strings are not counted since they're interned
+     * and shared with the other tables.
+     *
+     * @return bytes
+     */
+    long estimatedBytes() {
+        return align(OBJECT_HEADER + 4 + 4 + 4)
+                + align(ARRAY_HEADER + 4L * epochDays.length)
+                + align(ARRAY_HEADER + 2L * nameIds.length)
+                + align(ARRAY_HEADER + 4L * names.length);
     }
 
-    void addHoliday(LocalDate date, String name) {
-        holidayMap.put(date, name);
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
     }
 }
@@ -0,0 +1,129 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Localized holiday names, resolved from the "holidays" bundle.<br>
+ * Bundle keys and the templates used by the predefined holidays, like "${unitedStates.NewYearsDay} (${unitedStates.observed})",
+ * are resolved when the table is created. Other names are resolved once on first use and memoized.
+ */
+final class HolidayNames {
+    /**
+     * upper bound of memoized names, so that rules generating names on the fly don't grow the table indefinitely
+     */
+    static final int MAX_NAMES = 4096;
+    private static final Map<Locale, HolidayNames> tables = new ConcurrentHashMap<>();
+
+    private final ResourceBundle resource;
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+
+    private HolidayNames(@NotNull Locale locale) {
+        this.resource = ResourceBundle.getBundle("holidays", locale);
+        for (String key : resource.keySet()) {
+            names.put(key, resource.getString(key).intern());
+        }
+        for (String template : UnitedStates.getInstance().templates()) {
+            names.put(template, compile(template));
+        }
+    }
+
+    /**
+     * Returns the name table for the specified locale, shared process-wide
+     *
+     * @param locale locale
+     * @return name table
+     */
+    @NotNull
+    static HolidayNames of(@NotNull Locale locale) {
+        return tables.computeIfAbsent(locale, HolidayNames::new);
+    }
+
+    /**
+     * Returns the localized name of the specified key or template
+     *
+     * @param key bundle key, template or verbatim name
+     * @return localized name
+     */
+    @NotNull
+    String get(@NotNull String key) {
+        final String name = names.get(key);
+        if (name != null) {
+            return name;
+        }
+        final String compiled = compile(key);
+        if (names.size() < MAX_NAMES) {
+            names.putIfAbsent(key, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Resolves a bundle key, or "${key}" placeholders in a template
+     *
+     * @param key bundle key or template
+     * @return resolved name
+     */
+    @NotNull
+    private String compile(@NotNull String key) {
+        if (resource.containsKey(key)) {
+            return resource.getString(key).intern();
+        }
+        int start = key.indexOf("${");
+        if (start < 0) {
+            return key;
+        }
+        final StringBuilder b = new StringBuilder();
+        int last = 0;
+        while (start >= 0) {
+            final int end = placeholderEnd(key, start + 2);
+            if (end < 0) {
+                start = key.indexOf("${", start + 1);
+                continue;
+            }
+            b.append(key, last, start);
+            b.append(resource.getString(key.substring(start + 2, end)));
+            last = end + 1;
+            start = key.indexOf("${", last);
+        }
+        b.append(key, last, key.length());
+        return b.toString().intern();
+    }
+
+    /**
+     * @param key  template
+     * @param from index of the first character of a placeholder name
+     * @return index of the closing brace, or -1 if the placeholder name is not [a-zA-Z.]+
+     */
+    private static int placeholderEnd(@NotNull String key, int from) {
+        for (int i = from; i < key.length(); i++) {
+            final char c = key.charAt(i);
+            if (c == '}') {
+                return i == from ? -1 : i;
+            }
+            if (!(c == '.' || ('a' <= c && c <= 'z') || ('A' <= c && c <= 'Z'))) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BusinessCalendarMetrics implementation which records query counts, latency histograms, rules evaluated,
+ * cache hit ratios and reload statistics.<br>
+ * Counters are striped (LongAdder) and lock-free.
+ * <pre>{@code
+ * MetricsRecorder metrics = new MetricsRecorder();
+ * metrics.registerMBean("one.cafebabe.businesscalendar4j:type=Metrics,name=stores");
+ * BusinessCalendar calendar = BusinessCalendar.newBuilder().metrics(metrics)....build();
+ * }</pre>
+ *
+ * @since 17.1.0
+ */
+public final class MetricsRecorder implements BusinessCalendarMetrics {
+    /**
+     * number of latency histogram buckets. bucket n counts queries that took [2^(n-1), 2^n) nanoseconds
+     */
+    static final int BUCKETS = 64;
+
+    private final QueryStatistics[] queries = new QueryStatistics[Query.values().length];
+    private final LongAdder[] cacheHits = new LongAdder[Cache.values().length];
+    private final LongAdder[] cacheMisses = new LongAdder[Cache.values().length];
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder reloadFailures = new LongAdder();
+    private final LongAdder reloadNanos = new LongAdder();
+    private final LongAdder bytesFetched = new LongAdder();
+    private final LongAdder parseWarnings = new LongAdder();
+
+    /**
+     * Creates a new recorder
+     */
+    public MetricsRecorder() {
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = new QueryStatistics();
+        }
+        for (int i = 0; i < cacheHits.length; i++) {
+            cacheHits[i] = new LongAdder();
+            cacheMisses[i] = new LongAdder();
+        }
+    }
+
+    private static final class QueryStatistics {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder rules = new LongAdder();
+        private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        QueryStatistics() {
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = new LongAdder();
+            }
+        }
+    }
+
+    @Override
+    public void query(@NotNull Query query, long nanos, int rulesEvaluated) {
+        final QueryStatistics statistics = queries[query.ordinal()];
+        statistics.count.increment();
+        statistics.nanos.add(nanos);
+        statistics.rules.add(rulesEvaluated);
+        statistics.histogram[bucket(nanos)].increment();
+    }
+
+    static int bucket(long nanos) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos)));
+    }
+
+    @Override
+    public void cacheAccess(@NotNull Cache cache, boolean hit) {
+        (hit ? cacheHits : cacheMisses)[cache.ordinal()].increment();
+    }
+
+    @Override
+    public void reload(@NotNull String source, long nanos, long bytes, int warnings, boolean success) {
+        reloads.increment();
+        if (!success) {
+            reloadFailures.increment();
+        }
+        reloadNanos.add(nanos);
+        bytesFetched.add(bytes);
+        parseWarnings.add(warnings);
+    }
+
+    /**
+     * @param query query
+     * @return number of queries
+     */
+    public long getCount(@NotNull Query query) {
+        return queries[query.ordinal()].count.sum();
+    }
+
+    /**
+     * @param query query
+     * @return total elapsed time in nanoseconds
+     */
+    public long getTotalNanos(@NotNull Query query) {
+        return queries[query.ordinal()].nanos.sum();
+    }
+
+    /**
+     * @param query query
+     * @return average number of rules evaluated per query, or 0 if no query was recorded
+     */
+    public double getRulesEvaluatedPerQuery(@NotNull Query query) {
+        final long count = getCount(query);
+        return count == 0 ? 0 : (double) queries[query.ordinal()].rules.sum() / count;
+    }
+
+    /**
+     * Returns latency histogram. Element n is the number of queries that took [2^(n-1), 2^n) nanoseconds.
+     *
+     * @param query query
+     * @return latency histogram
+     */
+    @NotNull
+    public long[] getLatencyHistogram(@NotNull Query query) {
+        final LongAdder[] histogram = queries[query.ordinal()].histogram;
+        final long[] snapshot = new long[histogram.length];
+        for (int i = 0; i < histogram.length; i++) {
+            snapshot[i] = histogram[i].sum();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns upper bound of the latency percentile, with power of two precision.
+     *
+     * @param query      query
+     * @param percentile percentile, from 0 to 100
+     * @return latency upper bound in nanoseconds, or 0 if no query was recorded
+     */
+    public long getLatencyPercentile(@NotNull Query query, double percentile) {
+        final long[] histogram = getLatencyHistogram(query);
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final double threshold = total * percentile / 100;
+        long accumulated = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            accumulated += histogram[i];
+            if (threshold <= accumulated) {
+                return i == 0 ? 0 : 1L << Math.min(62, i);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * @param cache cache
+     * @return number of hits
+     */
+    public long getHits(@NotNull Cache cache) {
+        return cacheHits[cache.ordinal()].sum();
+    }
+
+    /**
+     * @param cache cache
+     * @return number of misses
+     */
+    public long getMisses(@NotNull Cache cache) {
+        return cacheMisses[cache.ordinal()].sum();
+    }
+
+    /**
+     * @param cache cache
+     * @return hit ratio, or 0 if the cache has never been accessed
+     */
+    public double getHitRatio(@NotNull Cache cache) {
+        final long hits = getHits(cache);
+        final long total = hits + getMisses(cache);
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * @return number of reloads
+     */
+    public long getReloadCount() {
+        return reloads.sum();
+    }
+
+    /**
+     * @return number of failed reloads
+     */
+    public long getReloadFailureCount() {
+        return reloadFailures.sum();
+    }
+
+    /**
+     * @return total reload time in nanoseconds
+     */
+    public long getReloadNanos() {
+        return reloadNanos.sum();
+    }
+
+    /**
+     * @return total bytes read by reloads
+     */
+    public long getBytesFetched() {
+        return bytesFetched.sum();
+    }
+
+    /**
+     * @return total parse warnings
+     */
+    public long getParseWarningCount() {
+        return parseWarnings.sum();
+    }
+
+    /**
+     * Registers this recorder to the platform MBean server as a {@link MetricsRecorderMXBean}
+     *
+     * @param objectName object name, like "one.cafebabe.businesscalendar4j:type=Metrics,name=stores"
+     * @return registered object name
+     * @throws IllegalArgumentException malformed object name, or the name is already registered
+     */
+    @NotNull
+    public ObjectName registerMBean(@NotNull String objectName) {
+        try {
+            final ObjectName name = new ObjectName(objectName);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsRecorderMBeanAdapter(this), name);
+            return name;
+        } catch (JMException e) {
+            throw new IllegalArgumentException("failed to register " + objectName, e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exposes MetricsRecorder as an MXBean
+ */
+final class MetricsRecorderMBeanAdapter implements MetricsRecorderMXBean {
+    private final MetricsRecorder recorder;
+
+    MetricsRecorderMBeanAdapter(MetricsRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Map<String, Long> getQueryCounts() {
+        return perQuery(recorder::getCount);
+    }
+
+    @Override
+    public Map<String, Double> getAverageLatencyNanos() {
+        final Map<String, Double> map = new LinkedHashMap<>();
+        for (BusinessCalendarMetrics.Query query : BusinessCalendarMetrics.Query.values()) {
+            final long count = recorder.getCount(query);
+            map.put(query.name(), count == 0 ? 0 : (double) recorder.getTotalNanos(query) / count);
+        }
+        return map;
+    }
+
+    @Override
+    public Map<String, Long> getP99LatencyNanos() {
+        return perQuery(query -> recorder.getLatencyPercentile(query, 99));
+    }
+
+    @Override
+    public Map<String, Double> getRulesEvaluatedPerQuery() {
+        final Map<String, Double> map = new LinkedHashMap<>();
+        for (BusinessCalendarMetrics.Query query : BusinessCalendarMetrics.Query.values()) {
+            map.put(query.name(), recorder.getRulesEvaluatedPerQuery(query));
+        }
+        return map;
+    }
+
+    @Override
+    public Map<String, Double> getCacheHitRatios() {
+        return perCache(recorder::getHitRatio);
+    }
+
+    @Override
+    public long latencyPercentileNanos(String query, double percentile) {
+        return recorder.getLatencyPercentile(BusinessCalendarMetrics.Query.valueOf(query), percentile);
+    }
+
+    @Override
+    public long getReloadCount() {
+        return recorder.getReloadCount();
+    }
+
+    @Override
+    public long getReloadFailureCount() {
+        return recorder.getReloadFailureCount();
+    }
+
+    @Override
+    public long getReloadMillis() {
+        return recorder.getReloadNanos() / 1_000_000;
+    }
+
+    @Override
+    public long getBytesFetched() {
+        return recorder.getBytesFetched();
+    }
+
+    @Override
+    public long getParseWarningCount() {
+        return recorder.getParseWarningCount();
+    }
+
+    private Map<String, Long> perQuery(ToLongFunction<BusinessCalendarMetrics.Query> function) {
+        final Map<String, Long> map = new LinkedHashMap<>();
+        for (BusinessCalendarMetrics.Query query : BusinessCalendarMetrics.Query.values()) {
+            map.put(query.name(), function.applyAsLong(query));
+        }
+        return map;
+    }
+
+    private Map<String, Double> perCache(ToDoubleFunction<BusinessCalendarMetrics.Cache> function) {
+        final Map<String, Double> map = new LinkedHashMap<>();
+        for (BusinessCalendarMetrics.Cache cache : BusinessCalendarMetrics.Cache.values()) {
+            map.put(cache.name(), function.applyAsDouble(cache));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link MetricsRecorder}.<br>
+ * Maps are keyed by {@link BusinessCalendarMetrics.Query} / {@link BusinessCalendarMetrics.Cache} names.
+ *
+ * @since 17.1.0
+ */
+public interface MetricsRecorderMXBean {
+    /**
+     * @return number of queries per method
+     */
+    Map<String, Long> getQueryCounts();
+
+    /**
+     * @return average latency in nanoseconds per method
+     */
+    Map<String, Double> getAverageLatencyNanos();
+
+    /**
+     * @return 99th percentile latency upper bound in nanoseconds per method
+     */
+    Map<String, Long> getP99LatencyNanos();
+
+    /**
+     * @return average number of rules evaluated per query, per method
+     */
+    Map<String, Double> getRulesEvaluatedPerQuery();
+
+    /**
+     * @return hit ratio per cache
+     */
+    Map<String, Double> getCacheHitRatios();
+
+    /**
+     * @param query      query name
+     * @param percentile percentile, from 0 to 100
+     * @return latency upper bound in nanoseconds
+     */
+    long latencyPercentileNanos(String query, double percentile);
+
+    /**
+     * @return number of reloads
+     */
+    long getReloadCount();
+
+    /**
+     * @return number of failed reloads
+     */
+    long getReloadFailureCount();
+
+    /**
+     * @return total reload time in milliseconds
+     */
+    long getReloadMillis();
+
+    /**
+     * @return total bytes read by reloads
+     */
+    long getBytesFetched();
+
+    /**
+     * @return total parse warnings
+     */
+    long getParseWarningCount();
+}
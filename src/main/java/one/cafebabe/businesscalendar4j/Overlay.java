@@ -0,0 +1,198 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Holidays and business hours set on specific dates at runtime, taking precedence over the rules, CSV configurations,
+ * the index and the cache.<br>
+ * Readers look up a concurrent sorted map without locking. Updates are serialized, and appended to the journal before they're
+ * visible, one line per update:
+ * <pre>
+ * holiday,2021-12-24,Typhoon
+ * open,2021-12-25
+ * hours,2021-12-27,10-12,13-15
+ * clear,2021-12-24
+ * </pre>
+ * The journal is replayed and compacted to one line per date when the calendar is built.
+ */
+final class Overlay {
+    private static final Logger logger = Logger.getLogger();
+
+    /**
+     * @param holidayKey holiday name, or null on business days
+     * @param hours      business hours, or null to follow the rules
+     * @param slots      slots of the business hours, prepared once. null if hours is null
+     */
+    record Entry(@Nullable String holidayKey, @Nullable List<BusinessHourFromTo> hours,
+                 @Nullable BusinessCalendarBuilder.BusinessHours slots) {
+        @NotNull
+        static Entry holiday(@NotNull String holidayKey) {
+            return new Entry(holidayKey, null, null);
+        }
+
+        @NotNull
+        static Entry open() {
+            return new Entry(null, null, null);
+        }
+
+        @NotNull
+        static Entry hours(@NotNull List<BusinessHourFromTo> hours) {
+            return new Entry(null, hours, new BusinessCalendarBuilder.BusinessHours(date -> true, hours));
+        }
+    }
+
+    private final NavigableMap<LocalDate, Entry> entries = new ConcurrentSkipListMap<>();
+    @Nullable
+    private final Path journal;
+
+    private Overlay(@Nullable Path journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * @param journal journal to be replayed and appended, or null to keep the overlay in memory only
+     * @return overlay
+     * @throws UncheckedIOException failed to read or compact the journal
+     */
+    @NotNull
+    static Overlay of(@Nullable Path journal) {
+        final Overlay overlay = new Overlay(journal);
+        if (journal != null && Files.exists(journal)) {
+            try {
+                overlay.replay(journal);
+            } catch (IOException e) {
+                throw new UncheckedIOException("failed to replay " + journal.toAbsolutePath(), e);
+            }
+        }
+        return overlay;
+    }
+
+    private void replay(@NotNull Path journal) throws IOException {
+        final List<String> lines = Files.readAllLines(journal, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            if (line.isBlank()) {
+                continue;
+            }
+            final String[] split = line.split(",", 3);
+            try {
+                final LocalDate date = LocalDate.parse(split[1].trim());
+                switch (split[0].trim()) {
+                    case "holiday" -> entries.put(date, Entry.holiday(split[2].trim()));
+                    case "open" -> entries.put(date, Entry.open());
+                    case "hours" -> entries.put(date, Entry.hours(BusinessHoursParser.parse(split[2])));
+                    case "clear" -> entries.remove(date);
+                    default -> throw new IllegalArgumentException("unknown operation: " + split[0]);
+                }
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                logger.warn(() -> "ignored malformed line in " + journal.toAbsolutePath() + ": " + line);
+            }
+        }
+        // rewritten to one line per date, so that the journal doesn't grow across restarts
+        final List<String> compacted = new ArrayList<>(entries.size());
+        for (Map.Entry<LocalDate, Entry> entry : entries.entrySet()) {
+            compacted.add(line(entry.getKey(), entry.getValue()));
+        }
+        final Path temp = journal.resolveSibling(journal.getFileName() + ".tmp");
+        Files.write(temp, compacted, StandardCharsets.UTF_8);
+        HolidayDataCache.move(temp, journal);
+    }
+
+    @NotNull
+    private static String line(@NotNull LocalDate date, @Nullable Entry entry) {
+        if (entry == null) {
+            return "clear," + date;
+        }
+        if (entry.holidayKey != null) {
+            return "holiday," + date + "," + entry.holidayKey;
+        }
+        if (entry.hours != null) {
+            final StringBuilder hours = new StringBuilder();
+            for (BusinessHourFromTo fromTo : entry.hours) {
+                hours.append(hours.length() == 0 ? "" : ",").append(fromTo.from()).append('-').append(fromTo.to());
+            }
+            return "hours," + date + "," + hours;
+        }
+        return "open," + date;
+    }
+
+    /**
+     * @param date date
+     * @return entry of the date, or null if the date follows the rules
+     */
+    @Nullable
+    Entry get(@NotNull LocalDate date) {
+        return entries.isEmpty() ? null : entries.get(date);
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * @param from first date, inclusive
+     * @param to   last date, inclusive
+     * @return live view of the entries in the range, sorted by date
+     */
+    @NotNull
+    NavigableMap<LocalDate, Entry> entries(@NotNull LocalDate from, @NotNull LocalDate to) {
+        return entries.subMap(from, true, to, true);
+    }
+
+    /**
+     * @param date  date
+     * @param entry entry, or null to follow the rules again
+     * @throws UncheckedIOException failed to append to the journal. the overlay is left unchanged
+     */
+    synchronized void set(@NotNull LocalDate date, @Nullable Entry entry) {
+        if (journal != null) {
+            try {
+                Files.writeString(journal, line(date, entry) + "\n", StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+            } catch (IOException e) {
+                throw new UncheckedIOException("failed to append to " + journal.toAbsolutePath(), e);
+            }
+        }
+        if (entry == null) {
+            entries.remove(date);
+        } else {
+            entries.put(date, entry);
+        }
+    }
+
+    /**
+     * @return approximate heap footprint
+     */
+    long estimatedBytes() {
+        return 64 + entries.size() * 96L;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Result of {@link BusinessCalendar#prewarm(LocalDate, LocalDate)}
+ *
+ * @param from           first date prewarmed
+ * @param to             last date prewarmed
+ * @param days           number of dates prewarmed
+ * @param elapsed        time taken
+ * @param allocatedBytes bytes allocated by the prewarming thread, or -1 if not supported by the JVM
+ * @param estimatedBytes approximate memory footprint of the calendar after prewarming
+ * @since 17.1.0
+ */
+public record PrewarmStats(@NotNull LocalDate from, @NotNull LocalDate to, long days, @NotNull Duration elapsed,
+                           long allocatedBytes, long estimatedBytes) {
+}
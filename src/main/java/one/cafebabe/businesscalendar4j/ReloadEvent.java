@@ -0,0 +1,58 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event emitted on each CsvConfiguration / CSVHolidays (re)load. Disabled by default.
+ */
+@Name("one.cafebabe.businesscalendar4j.Reload")
+@Label("Calendar Reload")
+@Category({"businessCalendar4j"})
+@Description("Holiday / business hours configuration loaded")
+@Enabled(false)
+@StackTrace(false)
+final class ReloadEvent extends Event {
+    @Label("Source")
+    String source;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Parse Time")
+    @Timespan
+    long parseTime;
+
+    @Label("Warnings")
+    int warnings;
+
+    @Label("Success")
+    boolean success;
+
+    void commit(String source, long bytes, long parseTime, int warnings, boolean success) {
+        end();
+        if (shouldCommit()) {
+            this.source = source;
+            this.bytes = bytes;
+            this.parseTime = parseTime;
+            this.warnings = warnings;
+            this.success = success;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Listener notified after a CSV configuration or the Japanese holiday data is reloaded successfully.<br>
+ * Listeners are called asynchronously on a single daemon thread shared process-wide, in the order of reloads. They
+ * should return quickly. Exceptions thrown by listeners are logged and ignored.
+ *
+ * @see CsvConfiguration#addReloadListener(ReloadListener)
+ * @see BusinessCalendar#addReloadListener(ReloadListener)
+ * @since 17.1.0
+ */
+@FunctionalInterface
+public interface ReloadListener {
+    /**
+     * Called after a successful reload
+     *
+     * @param change dates changed by the reload
+     */
+    void reloaded(@NotNull ConfigurationChange change);
+}
@@ -0,0 +1,63 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reload listeners of a source. Notifications are dispatched on a single daemon thread shared process-wide, so that
+ * listeners never run on the reload thread and see reloads in order.
+ */
+final class ReloadListeners {
+    /**
+     * created on the first notification, so that sources initialized at image build time don't start an executor
+     */
+    private static final class Dispatcher {
+        private static final Logger logger = Logger.getLogger();
+        private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "BusinessCalendar reload listener");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final List<ReloadListener> listeners = new CopyOnWriteArrayList<>();
+
+    void add(@NotNull ReloadListener listener) {
+        listeners.add(listener);
+    }
+
+    void remove(@NotNull ReloadListener listener) {
+        listeners.remove(listener);
+    }
+
+    void notify(@NotNull ConfigurationChange change) {
+        for (ReloadListener listener : listeners) {
+            Dispatcher.executor.execute(() -> {
+                try {
+                    listener.reloaded(change);
+                } catch (RuntimeException e) {
+                    Dispatcher.logger.warn(() -> "reload listener failed: " + change, e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+/**
+ * Counts holiday / business hours rules of one instrumented calendar evaluated on each thread.<br>
+ * Only calendars built with metrics have a counter. The rules of other calendars are built without one and count
+ * nothing.
+ */
+final class RuleCounter {
+    private final ThreadLocal<int[]> count = ThreadLocal.withInitial(() -> new int[1]);
+
+    void increment() {
+        count.get()[0]++;
+    }
+
+    /**
+     * @return number of rules evaluated on the current thread so far
+     */
+    int count() {
+        return count.get()[0];
+    }
+}
@@ -0,0 +1,61 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import jdk.jfr.*;
+
+import java.time.LocalDate;
+
+/**
+ * JFR event emitted when a BusinessCalendar query scanned many days one by one. Disabled by default.<br>
+ * Only scans of {@link #THRESHOLD_DAYS} days or more are recorded. The threshold can be changed with the system
+ * property "businessCalendar4j.jfr.scanThresholdDays" (default: 366).
+ */
+@Name("one.cafebabe.businesscalendar4j.LongScan")
+@Label("Calendar Long Scan")
+@Category({"businessCalendar4j"})
+@Description("Query scanned many days one by one")
+@Enabled(false)
+@StackTrace(true)
+final class ScanEvent extends Event {
+    static final int THRESHOLD_DAYS = Integer.getInteger("businessCalendar4j.jfr.scanThresholdDays", 366);
+
+    @Label("Method")
+    String method;
+
+    @Label("From")
+    String from;
+
+    @Label("To")
+    String to;
+
+    @Label("Days Scanned")
+    long days;
+
+    void commit(String method, LocalDate from, LocalDate to) {
+        final long scanned = Math.abs(to.toEpochDay() - from.toEpochDay()) + 1;
+        if (THRESHOLD_DAYS <= scanned) {
+            end();
+            if (shouldCommit()) {
+                this.method = method;
+                this.from = from.toString();
+                this.to = to.toString();
+                this.days = scanned;
+                commit();
+            }
+        }
+    }
+}
@@ -15,11 +15,15 @@
  */
 package one.cafebabe.businesscalendar4j;
 
+import org.jetbrains.annotations.NotNull;
+
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -31,7 +35,10 @@ import static one.cafebabe.businesscalendar4j.BusinessCalendarPredicate.predicat
  * Holidays in the United States
  */
 public class UnitedStates {
-
+    /**
+     * name templates of observed holidays, collected so that they can be resolved up front
+     */
+    private static final List<String> templates = new ArrayList<>();
 
     /**
      * New Year's Day
@@ -78,6 +85,8 @@ public class UnitedStates {
 
 
     private static Function<LocalDate, String> substitution(Predicate<LocalDate> predicate, String name) {
+        final String observed = "${" + name + "} (${unitedStates.observed})";
+        templates.add(observed);
         return date -> {
             if (predicate.test(date)) {
                 return name;
@@ -90,7 +99,7 @@ public class UnitedStates {
             }
             if (movedFrom != null) {
                 if (predicate.test(movedFrom)) {
-                    return "${" + name + "} (${unitedStates.observed})";
+                    return observed;
                 }
             }
             return null;
@@ -100,6 +109,13 @@ public class UnitedStates {
     private UnitedStates() {
     }
 
+    /**
+     * @return name templates returned by the predefined holidays
+     */
+    List<String> templates() {
+        return Collections.unmodifiableList(templates);
+    }
+
     private static final UnitedStates singleton = new UnitedStates();
 
     static UnitedStates getInstance() {
@@ -121,5 +137,13 @@ public class UnitedStates {
         }
         return null;
     };
+
+    /**
+     * @param logic holiday logic
+     * @return true if the logic is one of the predefined holidays, all of which repeat every 400 years
+     */
+    boolean defines(@NotNull Function<LocalDate, String> logic) {
+        return logic == PUBLIC_HOLIDAYS || all.contains(logic);
+    }
 }
 
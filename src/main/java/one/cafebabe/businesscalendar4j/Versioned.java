@@ -0,0 +1,94 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A holiday / business hours source whose content can change at runtime, like a reloadable CSV.
+ */
+interface Versioned {
+    /**
+     * Returns the version of the content, which increases whenever the content is (re)loaded.
+     *
+     * @return version
+     */
+    long version();
+
+    /**
+     * Returns the dates whose results may have changed since the specified version
+     *
+     * @param version version previously returned by {@link #version()}
+     * @return changed dates, {@link DateChanges#ALL} if unknown
+     */
+    @NotNull
+    default DateChanges changesSince(long version) {
+        return version == version() ? DateChanges.NONE : DateChanges.ALL;
+    }
+
+    /**
+     * @param listener listener to be notified after reloads
+     */
+    default void addReloadListener(@NotNull ReloadListener listener) {
+    }
+
+    /**
+     * @param listener listener to be removed
+     */
+    default void removeReloadListener(@NotNull ReloadListener listener) {
+    }
+
+    /**
+     * @param sources sources
+     * @return current versions of the sources
+     */
+    @NotNull
+    static long[] versions(@NotNull Versioned[] sources) {
+        final long[] versions = new long[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            versions[i] = sources[i].version();
+        }
+        return versions;
+    }
+
+    /**
+     * @param sources  sources
+     * @param versions versions of the sources previously returned by {@link #versions(Versioned[])}
+     * @return true if any of the sources has been reloaded
+     */
+    static boolean changed(@NotNull Versioned[] sources, @NotNull long[] versions) {
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i].version() != versions[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param sources  sources
+     * @param versions versions of the sources previously returned by {@link #versions(Versioned[])}
+     * @return dates whose results may have changed since the versions
+     */
+    @NotNull
+    static DateChanges changesSince(@NotNull Versioned[] sources, @NotNull long[] versions) {
+        DateChanges changes = DateChanges.NONE;
+        for (int i = 0; i < sources.length && !changes.all(); i++) {
+            changes = changes.union(sources[i].changesSince(versions[i]));
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.Predicate;
+
+/**
+ * Closed form of a calendar for counting business days over any span: a weekly closure mask, plus the exceptions
+ * found in a horizon, holidays on open weekdays and business days on closed weekdays, sorted by date. Dates outside
+ * the horizon are assumed to follow the weekly mask.<br>
+ * Business days between two dates are counted arithmetically, whole weeks times open weekdays plus the days of the
+ * partial week, and corrected by the exceptions in the range found by binary search. The cost is logarithmic in the
+ * number of exceptions, regardless of the span.
+ */
+final class WeeklyClosure {
+    /**
+     * 1970-01-01, epoch day 0, is a Thursday
+     */
+    private static final int EPOCH_DAY_OF_WEEK_INDEX = DayOfWeek.THURSDAY.getValue() - 1;
+
+    /**
+     * bit (day of week value - 1) is set if the weekday is closed
+     */
+    private final int closedMask;
+    private final int openPerWeek;
+    /**
+     * openFromEpochWeekday[i] is the number of open weekdays in the first i days of a week starting on Thursday
+     */
+    private final int[] openFromEpochWeekday = new int[8];
+    private final long[] extraHolidays;
+    private final long[] extraBusinessDays;
+    private final long[] versions;
+
+    private WeeklyClosure(int closedMask, @NotNull long[] extraHolidays, @NotNull long[] extraBusinessDays,
+                          @NotNull long[] versions) {
+        this.closedMask = closedMask;
+        this.openPerWeek = 7 - Integer.bitCount(closedMask);
+        for (int i = 0; i < 7; i++) {
+            openFromEpochWeekday[i + 1] = openFromEpochWeekday[i] + (closed((EPOCH_DAY_OF_WEEK_INDEX + i) % 7) ? 0 : 1);
+        }
+        this.extraHolidays = extraHolidays;
+        this.extraBusinessDays = extraBusinessDays;
+        this.versions = versions;
+    }
+
+    /**
+     * Derives the closed form from the holidays in the horizon. A weekday is closed if it's a holiday on more than half
+     * of its occurrences in the horizon.
+     *
+     * @param from     first date of the horizon
+     * @param to       last date of the horizon
+     * @param holiday  tests if a date is a holiday
+     * @param versions versions of the sources the holidays are derived from
+     * @return closed form
+     */
+    @NotNull
+    static WeeklyClosure of(@NotNull LocalDate from, @NotNull LocalDate to, @NotNull Predicate<LocalDate> holiday,
+                            @NotNull long[] versions) {
+        final long first = from.toEpochDay();
+        final int days = Math.toIntExact(to.toEpochDay() - first + 1);
+        final BitSet holidays = new BitSet(days);
+        final int[] holidaysPerWeekday = new int[7];
+        final int[] occurrences = new int[7];
+        for (int i = 0; i < days; i++) {
+            final int weekday = dayOfWeekIndex(first + i);
+            occurrences[weekday]++;
+            if (holiday.test(LocalDate.ofEpochDay(first + i))) {
+                holidays.set(i);
+                holidaysPerWeekday[weekday]++;
+            }
+        }
+        int closedMask = 0;
+        for (int weekday = 0; weekday < 7; weekday++) {
+            if (occurrences[weekday] < holidaysPerWeekday[weekday] * 2) {
+                closedMask |= 1 << weekday;
+            }
+        }
+        final long[] extraHolidays = new long[days];
+        final long[] extraBusinessDays = new long[days];
+        int holidayCount = 0;
+        int businessDayCount = 0;
+        for (int i = 0; i < days; i++) {
+            final boolean closedWeekday = (closedMask & (1 << dayOfWeekIndex(first + i))) != 0;
+            if (holidays.get(i) && !closedWeekday) {
+                extraHolidays[holidayCount++] = first + i;
+            } else if (!holidays.get(i) && closedWeekday) {
+                extraBusinessDays[businessDayCount++] = first + i;
+            }
+        }
+        return new WeeklyClosure(closedMask, Arrays.copyOf(extraHolidays, holidayCount),
+                Arrays.copyOf(extraBusinessDays, businessDayCount), versions);
+    }
+
+    @NotNull
+    long[] versions() {
+        return versions;
+    }
+
+    /**
+     * @param weekday day of week value - 1
+     * @return true if the weekday is closed
+     */
+    boolean closed(int weekday) {
+        return (closedMask & (1 << weekday)) != 0;
+    }
+
+    /**
+     * @param fromEpochDay first epoch day, inclusive
+     * @param toEpochDay   last epoch day, inclusive
+     * @return number of business days
+     */
+    long count(long fromEpochDay, long toEpochDay) {
+        if (toEpochDay < fromEpochDay) {
+            return 0;
+        }
+        return openBefore(toEpochDay + 1) - openBefore(fromEpochDay)
+                - countBetween(extraHolidays, fromEpochDay, toEpochDay)
+                + countBetween(extraBusinessDays, fromEpochDay, toEpochDay);
+    }
+
+    /**
+     * @param epochDay epoch day
+     * @return number of open weekdays from epoch day 0 to the epoch day, exclusive. negative for negative epoch days
+     */
+    private long openBefore(long epochDay) {
+        return Math.floorDiv(epochDay, 7) * openPerWeek + openFromEpochWeekday[Math.floorMod(epochDay, 7)];
+    }
+
+    private static long countBetween(@NotNull long[] sorted, long from, long to) {
+        return lowerBound(sorted, to + 1) - lowerBound(sorted, from);
+    }
+
+    /**
+     * @return index of the first element equal to or greater than the key
+     */
+    private static int lowerBound(@NotNull long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int dayOfWeekIndex(long epochDay) {
+        return Math.floorMod(epochDay + EPOCH_DAY_OF_WEEK_INDEX, 7);
+    }
+
+    /**
+     * @return approximate heap footprint
+     */
+    long estimatedBytes() {
+        return 96 + (extraHolidays.length + extraBusinessDays.length) * 8L;
+    }
+}
@@ -21,6 +21,7 @@ import org.jetbrains.annotations.Nullable;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.function.Function;
 
 /**
@@ -65,6 +66,18 @@ public class ビジネスカレンダー {
         this.businessCalendar = businessCalendar;
     }
 
+    /**
+     * 祝休日名を指定したロケールで返すビューを返す。ルール、CSV設定、キャッシュはこのカレンダーと共有される
+     *
+     * @param locale ロケール
+     * @return 指定したロケールのビジネスカレンダー
+     * @since 17.1.0
+     */
+    @NotNull
+    public ビジネスカレンダー withLocale(@NotNull Locale locale) {
+        return new ビジネスカレンダー(businessCalendar.withLocale(locale));
+    }
+
     /**
      * @return 新しいBuilder
      */
@@ -0,0 +1,176 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Execution(ExecutionMode.CONCURRENT)
+class BusinessCalendarRegistryTest {
+    private static Path stores() throws IOException {
+        final Path directory = Files.createTempDirectory("stores");
+        Files.writeString(directory.resolve("store-1.csv"), "holiday,2021/12/24,closed for inventory\nhours,9-17\n");
+        Files.writeString(directory.resolve("store-2.csv"), "holiday,2021/12/25,Christmas\nhours,10-18\n");
+        Files.writeString(directory.resolve("store-3.csv"), "holiday,2021/12/26,Boxing Day\nhours,10-20\n");
+        Files.writeString(directory.resolve("readme.txt"), "not a configuration");
+        return directory;
+    }
+
+    @Test
+    void lazyCompileAndEviction() throws IOException {
+        final Path directory = stores();
+        final long bytesPerCalendar;
+        try (BusinessCalendarRegistry registry = BusinessCalendarRegistry.getInstance(directory, Long.MAX_VALUE)) {
+            assertEquals(Set.of("store-1", "store-2", "store-3"), registry.getTenants());
+            assertEquals(0, registry.getCompiledCount());
+            assertTrue(registry.get("store-1").isHoliday(LocalDate.of(2021, 12, 24)));
+            assertEquals(1, registry.getCompiledCount());
+            bytesPerCalendar = registry.getEstimatedBytes("store-1");
+            assertTrue(0 < bytesPerCalendar);
+            assertEquals(bytesPerCalendar, registry.getEstimatedBytes());
+            assertSame(registry.get("store-1"), registry.get("store-1"));
+        }
+
+        // room for two calendars
+        try (BusinessCalendarRegistry registry = BusinessCalendarRegistry.getInstance(directory, bytesPerCalendar * 2 + bytesPerCalendar / 2)) {
+            registry.get("store-1");
+            registry.get("store-2");
+            registry.get("store-1");
+            assertEquals(2, registry.getCompiledCount());
+            assertTrue(registry.get("store-3").isHoliday(LocalDate.of(2021, 12, 26)));
+            assertEquals(2, registry.getCompiledCount());
+            assertEquals(1, registry.getEvictionCount());
+            // store-2 was the least recently queried
+            assertEquals(0, registry.getEstimatedBytes("store-2"));
+            assertTrue(0 < registry.getEstimatedBytes("store-1"));
+            assertTrue(registry.get("store-2").isHoliday(LocalDate.of(2021, 12, 25)));
+            assertTrue(registry.getEstimatedBytes() <= bytesPerCalendar * 2 + bytesPerCalendar / 2);
+        }
+    }
+
+    @Test
+    void evictedCalendarsStayUsable() throws IOException {
+        final Path directory = stores();
+        final long bytesPerCalendar;
+        try (BusinessCalendarRegistry registry = BusinessCalendarRegistry.getInstance(directory, Long.MAX_VALUE,
+                () -> BusinessCalendar.newBuilder().index(2021, 2021))) {
+            registry.get("store-1");
+            bytesPerCalendar = registry.getEstimatedBytes("store-1");
+        }
+        try (BusinessCalendarRegistry registry = BusinessCalendarRegistry.getInstance(directory, bytesPerCalendar + bytesPerCalendar / 2,
+                () -> BusinessCalendar.newBuilder().index(2021, 2021))) {
+            final BusinessCalendar store1 = registry.get("store-1");
+            registry.get("store-2");
+            assertEquals(1, registry.getEvictionCount());
+            // a calendar handed out before the eviction keeps answering
+            assertTrue(store1.isHoliday(LocalDate.of(2021, 12, 24)));
+        }
+    }
+
+    @Test
+    void invalidTenants() throws IOException {
+        try (BusinessCalendarRegistry registry = BusinessCalendarRegistry.getInstance(stores(), 1 << 20)) {
+            assertThrows(IllegalArgumentException.class, () -> registry.get("store-4"));
+            assertThrows(IllegalArgumentException.class, () -> registry.get("../store-1"));
+            assertThrows(IllegalArgumentException.class, () -> registry.get(".."));
+            assertThrows(IllegalArgumentException.class, () -> registry.get("readme"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> BusinessCalendarRegistry.getInstance(Path.of("doesnotexist"), 1 << 20));
+    }
+
+    @Test
+    void reloadedByWatcher() throws IOException, InterruptedException {
+        final Path directory = stores();
+        try (BusinessCalendarRegistry registry = BusinessCalendarRegistry.getInstance(directory, 1 << 20,
+                () -> BusinessCalendar.newBuilder().holiday(BusinessCalendar.JAPAN.PUBLIC_HOLIDAYS))) {
+            assertTrue(registry.get("store-1").isHoliday(LocalDate.of(2021, 1, 1)));
+            assertFalse(registry.get("store-1").isHoliday(LocalDate.of(2021, 12, 23)));
+            Files.writeString(directory.resolve("store-1.csv"), "holiday,2021/12/23,closed for inventory\nhours,9-17\n");
+            for (int i = 0; i < 200 && !registry.get("store-1").isHoliday(LocalDate.of(2021, 12, 23)); i++) {
+                //noinspection BusyWait
+                Thread.sleep(100);
+            }
+            assertTrue(registry.get("store-1").isHoliday(LocalDate.of(2021, 12, 23)));
+            assertFalse(registry.get("store-1").isHoliday(LocalDate.of(2021, 12, 24)));
+        }
+    }
+
+    @Test
+    void watcherSurvivesFailedReloads() throws IOException, InterruptedException {
+        final Path directory = stores();
+        final AtomicBoolean failing = new AtomicBoolean();
+        final BusinessCalendarMetrics metrics = new BusinessCalendarMetrics() {
+            @Override
+            public void reload(String source, long nanos, long bytes, int warnings, boolean success) {
+                if (failing.getAndSet(false)) {
+                    throw new IllegalStateException("failed on purpose");
+                }
+            }
+        };
+        try (BusinessCalendarRegistry registry = BusinessCalendarRegistry.getInstance(directory, 1 << 20,
+                () -> BusinessCalendar.newBuilder().metrics(metrics))) {
+            registry.get("store-1");
+            registry.get("store-2");
+            failing.set(true);
+            Files.writeString(directory.resolve("store-1.csv"), "holiday,2021/12/23,closed for inventory\nhours,9-17\n");
+            for (int i = 0; i < 200 && failing.get(); i++) {
+                //noinspection BusyWait
+                Thread.sleep(100);
+            }
+            assertFalse(failing.get());
+
+            // still watching
+            Files.writeString(directory.resolve("store-2.csv"), "holiday,2021/12/23,closed for inventory\nhours,10-18\n");
+            for (int i = 0; i < 200 && !registry.get("store-2").isHoliday(LocalDate.of(2021, 12, 23)); i++) {
+                //noinspection BusyWait
+                Thread.sleep(100);
+            }
+            assertTrue(registry.get("store-2").isHoliday(LocalDate.of(2021, 12, 23)));
+        }
+    }
+
+    @Test
+    void deletedTenantsAreRemoved() throws IOException, InterruptedException {
+        final Path directory = stores();
+        try (BusinessCalendarRegistry registry = BusinessCalendarRegistry.getInstance(directory, 1 << 20)) {
+            registry.get("store-1");
+            registry.get("store-3");
+            Files.delete(directory.resolve("store-3.csv"));
+            for (int i = 0; i < 200 && registry.getCompiledCount() != 1; i++) {
+                //noinspection BusyWait
+                Thread.sleep(100);
+            }
+            assertEquals(1, registry.getCompiledCount());
+            assertEquals(registry.getEstimatedBytes("store-1"), registry.getEstimatedBytes());
+            assertThrows(IllegalArgumentException.class, () -> registry.get("store-3"));
+
+            // created again
+            Files.writeString(directory.resolve("store-3.csv"), "holiday,2021/12/27,reopening\nhours,10-20\n");
+            assertTrue(registry.get("store-3").isHoliday(LocalDate.of(2021, 12, 27)));
+            assertFalse(registry.get("store-3").isHoliday(LocalDate.of(2021, 12, 26)));
+        }
+    }
+}
@@ -257,4 +257,24 @@ class BusinessCalendarTest {
         builder.build();
         assertThrows(IllegalStateException.class, builder::build);
     }
+
+    @Test
+    void prewarm() {
+        final BusinessCalendar calendar = BusinessCalendar.newBuilder().holiday(BusinessCalendar.JAPAN.PUBLIC_HOLIDAYS)
+                .cache(1024).build();
+        final PrewarmStats stats = calendar.prewarm(LocalDate.of(2021, 1, 1), LocalDate.of(2021, 12, 31));
+        assertEquals(365, stats.days());
+        assertTrue(-1 <= stats.allocatedBytes());
+        assertTrue(0 < stats.estimatedBytes());
+        assertEquals(365, calendar.getCacheStats().misses());
+        calendar.getHoliday(LocalDate.of(2021, 5, 3));
+        calendar.getBusinessHourSlots(LocalDate.of(2021, 5, 6));
+        assertEquals(365, calendar.getCacheStats().misses());
+        assertThrows(IllegalArgumentException.class, () -> calendar.prewarm(LocalDate.of(2021, 1, 2), LocalDate.of(2021, 1, 1)));
+
+        final BusinessCalendar prewarmedOnBuild = BusinessCalendar.newBuilder().holiday(BusinessCalendar.JAPAN.PUBLIC_HOLIDAYS)
+                .cache(1024).prewarm(LocalDate.of(2022, 1, 1), LocalDate.of(2022, 1, 31)).buildAsync().join();
+        assertEquals(31, prewarmedOnBuild.getCacheStats().misses());
+        assertEquals(59, calendar.prewarmAsync(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 2, 28)).join().days());
+    }
 }
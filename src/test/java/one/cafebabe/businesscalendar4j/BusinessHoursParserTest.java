@@ -0,0 +1,57 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Execution(ExecutionMode.CONCURRENT)
+class BusinessHoursParserTest {
+    private static BusinessHourFromTo fromTo(int fromHour, int fromMinute, int toHour, int toMinute) {
+        return new BusinessHourFromTo(LocalTime.of(fromHour, fromMinute), LocalTime.of(toHour, toMinute));
+    }
+
+    @Test
+    void grammar() {
+        assertEquals(List.of(fromTo(9, 0, 12, 0), fromTo(13, 0, 17, 0)), BusinessHoursParser.parse("13:00-17:00, 9:00-12:00"));
+        assertEquals(List.of(fromTo(9, 0, 17, 30)), BusinessHoursParser.parse("午前9時〜午後5時半"));
+        assertEquals(List.of(fromTo(10, 0, 11, 30), fromTo(12, 0, 16, 30)), BusinessHoursParser.parse("10AM-11:30 a.m., 12 noon to 4:30pm"));
+        assertEquals(List.of(fromTo(10, 0, 12, 0), fromTo(13, 30, 17, 0)), BusinessHoursParser.parse("10to12、13:30から17"));
+        assertEquals(List.of(fromTo(0, 0, 0, 0)), BusinessHoursParser.parse("0-24"));
+        assertEquals(List.of(fromTo(22, 0, 0, 0)), BusinessHoursParser.parse("10pm-12midnight"));
+        assertEquals(List.of(new BusinessHourFromTo(LocalTime.of(9, 5, 30), LocalTime.of(12, 0))), BusinessHoursParser.parse("9:5:30-12:"));
+        assertEquals(List.of(fromTo(9, 0, 12, 0)), BusinessHoursParser.parse("9-12,"));
+
+        for (String malformed : new String[]{"", "9", "9-", "-9", "9--12", "9-12,,13-17", ",9-12", "9::30-12", ":30-12", "10-9", "10-25", "24:30-25", "9:60-12", "a-b"}) {
+            assertThrows(IllegalArgumentException.class, () -> BusinessHoursParser.parse(malformed), malformed);
+        }
+    }
+
+    @Test
+    void cached() {
+        final List<BusinessHourFromTo> parsed = BusinessHoursParser.parse("9:00 - 12:00, 13:00 - 17:59");
+        assertSame(parsed, BusinessHoursParser.parse("9:00-12:00,13:00-17:59"));
+        assertNotSame(parsed, BusinessHoursParser.parseUncached("9:00-12:00,13:00-17:59"));
+        assertEquals(parsed, BusinessHoursParser.parseUncached("9:00-12:00,13:00-17:59"));
+        assertThrows(UnsupportedOperationException.class, parsed::clear);
+    }
+}
@@ -0,0 +1,223 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Execution(ExecutionMode.CONCURRENT)
+class CSVHolidaysTest {
+    @Test
+    void deferredFetchStartsWithBundledData() {
+        final long start = System.nanoTime();
+        // unreachable on purpose: the constructor must not touch the network
+        final CSVHolidays holidays = new CSVHolidays(60000, "http://localhost:1/syukujitsu.csv", "/syukujitsu.csv",
+                "japanese.", Charset.forName("Shift_JIS"), true);
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        assertEquals(LocalDate.of(1955, 1, 1), holidays.holidayMap.firstKey());
+        assertEquals("japanese.憲法記念日", holidays.apply(LocalDate.of(2021, 5, 3)));
+    }
+
+    @Test
+    void changes() {
+        final TreeMap<LocalDate, String> map = new TreeMap<>();
+        map.put(LocalDate.of(2021, 5, 3), "japanese.憲法記念日");
+        map.put(LocalDate.of(2021, 7, 22), "japanese.海の日");
+        map.put(LocalDate.of(2021, 12, 31), "japanese.休日");
+        final HolidayMap before = HolidayMap.of(map);
+        map.put(LocalDate.of(2021, 7, 22), "japanese.スポーツの日");
+        final DateChanges renamed = CSVHolidays.changes(before, HolidayMap.of(map));
+        assertTrue(renamed.contains(LocalDate.of(2021, 7, 22)));
+        // substitute holidays of the following week may change
+        assertTrue(renamed.contains(LocalDate.of(2021, 7, 29)));
+        assertFalse(renamed.contains(LocalDate.of(2021, 7, 30)));
+        assertFalse(renamed.contains(LocalDate.of(2021, 5, 3)));
+
+        map.put(LocalDate.of(2022, 1, 1), "japanese.元日");
+        final DateChanges extended = CSVHolidays.changes(before, HolidayMap.of(map));
+        assertTrue(extended.contains(LocalDate.of(2022, 1, 8)));
+        assertTrue(extended.contains(LocalDate.of(2021, 12, 31)));
+        assertFalse(extended.contains(LocalDate.of(2021, 12, 30)));
+        assertTrue(CSVHolidays.changes(before, before).isEmpty());
+    }
+
+    @Test
+    void localCache() throws IOException {
+        final Charset shiftJis = Charset.forName("Shift_JIS");
+        final Path source = Files.createTempFile("syukujitsu", ".csv");
+        try (InputStream is = Objects.requireNonNull(CSVHolidays.class.getResourceAsStream("/syukujitsu.csv"))) {
+            Files.write(source, is.readAllBytes());
+        }
+        Files.writeString(source, "\r\n2099/1/2,テスト\r\n", shiftJis, StandardOpenOption.APPEND);
+        final String url = source.toUri().toString();
+        final Path directory = Files.createTempDirectory("syukujitsu-cache");
+        final HolidayDataCache cache = new HolidayDataCache(directory, "syukujitsu.csv", Duration.ofDays(1));
+
+        // fetched and persisted
+        new CSVHolidays(60000, url, "/syukujitsu.csv", "japanese.", shiftJis, false, cache);
+        final HolidayDataCache.Cached cached = cache.read(url);
+        assertNotNull(cached);
+        assertTrue(cache.isFresh(cached));
+        assertArrayEquals(Files.readAllBytes(source), cached.bytes());
+        assertNull(cache.read("http://localhost:1/syukujitsu.csv"));
+
+        // restarted while the source is unavailable: the fresh copy is used without fetching
+        Files.delete(source);
+        assertEquals("japanese.テスト", new CSVHolidays(60000, url, "/syukujitsu.csv", "japanese.", shiftJis, false, cache)
+                .apply(LocalDate.of(2099, 1, 2)));
+
+        // the stale copy is preferred to the bundled data when the fetch fails
+        cache.write(url, cached.bytes(), Instant.now().minus(Duration.ofDays(2)));
+        assertFalse(cache.isFresh(Objects.requireNonNull(cache.read(url))));
+        assertEquals("japanese.テスト", new CSVHolidays(60000, url, "/syukujitsu.csv", "japanese.", shiftJis, false, cache)
+                .apply(LocalDate.of(2099, 1, 2)));
+
+        // a corrupt copy is ignored
+        Files.write(cache.data(), "2099/1/3,改ざん\r\n".getBytes(shiftJis));
+        assertNull(cache.read(url));
+        final CSVHolidays fallback = new CSVHolidays(60000, url, "/syukujitsu.csv", "japanese.", shiftJis, false, cache);
+        assertNull(fallback.apply(LocalDate.of(2099, 1, 2)));
+        assertEquals("japanese.憲法記念日", fallback.apply(LocalDate.of(2021, 5, 3)));
+    }
+
+    @Test
+    void sharedCache() throws IOException, InterruptedException {
+        final Charset shiftJis = Charset.forName("Shift_JIS");
+        final byte[] bytes;
+        try (InputStream is = Objects.requireNonNull(CSVHolidays.class.getResourceAsStream("/syukujitsu.csv"))) {
+            bytes = is.readAllBytes();
+        }
+        final AtomicInteger requests = new AtomicInteger();
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/syukujitsu.csv", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+        try {
+            final String url = "http://localhost:" + server.getAddress().getPort() + "/syukujitsu.csv";
+            final Path directory = Files.createTempDirectory("syukujitsu-shared");
+            // processes starting at once: one of them fetches, the others read the copy
+            final List<CompletableFuture<CSVHolidays>> processes = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                processes.add(CompletableFuture.supplyAsync(() -> new CSVHolidays(60000, url, "/syukujitsu.csv",
+                        "japanese.", shiftJis, false, new HolidayDataCache(directory, "syukujitsu.csv", Duration.ofDays(1), true))));
+            }
+            final List<CSVHolidays> holidays = processes.stream().map(CompletableFuture::join).toList();
+            assertEquals(1, requests.get());
+            for (CSVHolidays csvHolidays : holidays) {
+                assertEquals("japanese.憲法記念日", csvHolidays.apply(LocalDate.of(2021, 5, 3)));
+            }
+
+            // a copy fetched by another process is picked up by watching the directory
+            final byte[] line = "\r\n2099/1/2,テスト".getBytes(shiftJis);
+            final byte[] updated = Arrays.copyOf(bytes, bytes.length + line.length);
+            System.arraycopy(line, 0, updated, bytes.length, line.length);
+            new HolidayDataCache(directory, "syukujitsu.csv", Duration.ofDays(1), true).write(url, updated, Instant.now());
+            for (CSVHolidays csvHolidays : holidays) {
+                for (int i = 0; i < 100 && csvHolidays.apply(LocalDate.of(2099, 1, 2)) == null; i++) {
+                    //noinspection BusyWait
+                    Thread.sleep(100);
+                }
+                assertEquals("japanese.テスト", csvHolidays.apply(LocalDate.of(2099, 1, 2)));
+            }
+            assertEquals(1, requests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void reloadListener() throws IOException, InterruptedException {
+        final Charset shiftJis = Charset.forName("Shift_JIS");
+        final Path source = Files.createTempFile("syukujitsu", ".csv");
+        final byte[] bytes;
+        try (InputStream is = Objects.requireNonNull(CSVHolidays.class.getResourceAsStream("/syukujitsu.csv"))) {
+            bytes = is.readAllBytes();
+        }
+        Files.write(source, bytes);
+        final String url = source.toUri().toString();
+        final Path directory = Files.createTempDirectory("syukujitsu-reload");
+        final CSVHolidays holidays = new CSVHolidays(60000, url, "/syukujitsu.csv", "japanese.", shiftJis, false,
+                new HolidayDataCache(directory, "syukujitsu.csv", Duration.ofDays(1), true), Japan::publicHoliday);
+        final long version = holidays.version();
+        final BlockingQueue<ConfigurationChange> changes = new LinkedBlockingQueue<>();
+        holidays.addReloadListener(changes::add);
+
+        // another copy of the same holidays: the header is ignored
+        final HolidayMap loaded = holidays.holidayMap;
+        final byte[] header = "#".getBytes(shiftJis);
+        final byte[] same = Arrays.copyOf(header, header.length + bytes.length);
+        System.arraycopy(bytes, 0, same, header.length, bytes.length);
+        new HolidayDataCache(directory, "syukujitsu.csv", Duration.ofDays(1), true).write(url, same, Instant.now());
+        for (int i = 0; i < 100 && holidays.holidayMap == loaded; i++) {
+            //noinspection BusyWait
+            Thread.sleep(100);
+        }
+        assertNotSame(loaded, holidays.holidayMap);
+        assertEquals(version, holidays.version());
+        assertTrue(changes.isEmpty());
+
+        // extended to 2099: holidays up to then are looked up in the table instead of being calculated
+        final byte[] line = "\r\n2099/1/2,テスト".getBytes(shiftJis);
+        final byte[] extended = Arrays.copyOf(bytes, bytes.length + line.length);
+        System.arraycopy(line, 0, extended, bytes.length, line.length);
+        new HolidayDataCache(directory, "syukujitsu.csv", Duration.ofDays(1), true).write(url, extended, Instant.now());
+        final ConfigurationChange change = changes.poll(10, TimeUnit.SECONDS);
+        assertNotNull(change);
+        assertEquals(version + 1, change.version());
+        assertEquals(version + 1, holidays.version());
+        assertTrue(change.isChanged(LocalDate.of(2099, 1, 2)));
+        assertTrue(change.isChanged(LocalDate.of(2050, 11, 3)));
+        // neither a holiday in the table nor calculated
+        assertFalse(change.isChanged(LocalDate.of(2050, 6, 15)));
+        // calculated with both tables
+        assertFalse(change.isChanged(LocalDate.of(2099, 1, 1)));
+        assertFalse(change.isChanged(LocalDate.of(2021, 5, 3)));
+        assertEquals(List.of(LocalDate.of(2050, 11, 3)),
+                change.getChangedDatesBetween(LocalDate.of(2050, 10, 15), LocalDate.of(2050, 11, 20)));
+    }
+}
@@ -19,19 +19,39 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
 
+import com.sun.net.httpserver.HttpServer;
+
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.net.InetSocketAddress;
 import java.net.URI;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.DayOfWeek;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -256,6 +276,156 @@ class CsvBasedConfiguration {
 
     }
 
+    @Test
+    void parallel() throws IOException {
+        final List<String> lines = new ArrayList<>();
+        lines.add("# parallel");
+        LocalDate date = LocalDate.of(2021, 1, 1);
+        for (int i = 0; i < 3000; i++) {
+            switch (i % 500) {
+                case 0 -> lines.add("ymdFormat,yyyy-MM-dd");
+                case 100 -> lines.add("ymdFormat,yyyy/M/d");
+                case 200 -> lines.add("mdFormat");
+                case 300 -> lines.add("hours,sataday,13-17");
+                case 400 -> lines.add("holiday,2,mon,second monday " + i);
+                default -> lines.add((i % 3 == 0 ? "hours," : "holiday,") + date.format(
+                        DateTimeFormatter.ofPattern(i % 500 < 100 ? "yyyy-MM-dd" : "yyyy/M/d"))
+                        + (i % 3 == 0 ? ",9-" + (12 + i % 10) : ",holiday" + i));
+            }
+            date = date.plusDays(1);
+        }
+        final CsvConfiguration sequential = CsvConfiguration.getInstance(write(""));
+        final CsvConfiguration parallel = CsvConfiguration.getInstance(write("")).parallel(true);
+        final List<String> sequentialWarnings = sequential.csv(lines, false);
+        assertEquals(sequentialWarnings, parallel.csv(lines));
+        assertEquals(12, sequentialWarnings.size());
+        assertEquals("Skipping line[202] (unable to parse): \"mdFormat\"", sequentialWarnings.get(0));
+        assertEquals(sequential.rules().rules(), parallel.rules().rules());
+        assertSame(sequential.rules(), parallel.rules());
+        assertEquals(3000 - 12 - 12, parallel.rules().rules().size());
+    }
+
+    @Test
+    void reloadListener() throws IOException, InterruptedException {
+        final Path path = write("holiday,2021/12/24,just holiday\nhours,SAT,10-15\nhours,9-17\n");
+        final CsvConfiguration conf = CsvConfiguration.getInstance(path);
+        final BusinessCalendar calendar = BusinessCalendar.newBuilder().csv(conf).build();
+        final BlockingQueue<ConfigurationChange> changes = new LinkedBlockingQueue<>();
+        final Thread reloadThread = Thread.currentThread();
+        final List<Thread> listenerThreads = new CopyOnWriteArrayList<>();
+        final ReloadListener listener = change -> {
+            listenerThreads.add(Thread.currentThread());
+            changes.add(change);
+        };
+        calendar.addReloadListener(listener);
+
+        write(path, "holiday,2021/11/24,just holiday\nhours,SAT,10-16\nhours,9-17\n");
+        conf.reload();
+        final ConfigurationChange change = changes.poll(10, TimeUnit.SECONDS);
+        assertNotNull(change);
+        assertEquals(conf.version(), change.version());
+        assertEquals(path.toAbsolutePath().toString(), change.source());
+        assertNotSame(reloadThread, listenerThreads.get(0));
+        assertTrue(change.isChanged(LocalDate.of(2021, 12, 24)));
+        assertTrue(change.isChanged(LocalDate.of(2022, 1, 1)));
+        assertFalse(change.isChanged(LocalDate.of(2021, 12, 23)));
+        assertEquals(List.of(LocalDate.of(2021, 11, 20), LocalDate.of(2021, 11, 24), LocalDate.of(2021, 11, 27)),
+                change.getChangedDatesBetween(LocalDate.of(2021, 11, 19), LocalDate.of(2021, 11, 29)));
+
+        // nothing changed, nothing notified
+        final long version = conf.version();
+        conf.reload();
+        assertNull(changes.poll(500, TimeUnit.MILLISECONDS));
+        assertEquals(version, conf.version());
+
+        calendar.removeReloadListener(listener);
+        write(path, "holiday,2021/10/24,just holiday\nhours,SAT,10-16\nhours,9-17\n");
+        conf.reload();
+        assertNull(changes.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void basesReleasedWhenUnused() throws IOException, InterruptedException {
+        final Path directory = Files.createTempDirectory("bases");
+        final Path base = write(directory.resolve("base.csv"), "holiday,12/31,New Year's Eve\n");
+        final Path store = write(directory.resolve("store.csv"), "include,base.csv\n");
+        final String key = base.toAbsolutePath().normalize().toString();
+        CsvConfiguration conf = CsvConfiguration.getInstance(store);
+        assertNotNull(CsvConfiguration.sharedBase(key));
+        assertEquals("New Year's Eve", conf.holiday().apply(LocalDate.of(2021, 12, 31)));
+        //noinspection UnusedAssignment
+        conf = null;
+        for (int i = 0; i < 100 && CsvConfiguration.sharedBase(key) != null; i++) {
+            System.gc();
+            //noinspection BusyWait
+            Thread.sleep(10);
+        }
+        assertNull(CsvConfiguration.sharedBase(key));
+    }
+
+    @Test
+    void layers() throws IOException {
+        final Path directory = Files.createTempDirectory("layers");
+        final Path company = write(directory.resolve("company.csv"), "holiday,12/31,New Year's Eve\nholiday,SUN,closed on Sundays\nhours,9-17\n");
+        Files.createDirectory(directory.resolve("kanto"));
+        write(directory.resolve("kanto/region.csv"), "include,../company.csv\nholiday,2021/8/16,Obon\nhours,SAT,10-15\n");
+        final Path store1 = write(directory.resolve("store-1.csv"), "include,kanto/region.csv\nholiday,2021/12/24,inventory\nhours,MON,10-12\n");
+        final Path store2 = write(directory.resolve("store-2.csv"), "include,kanto/region.csv\nholiday,2021/8/16,open on Obon\n");
+        final CsvConfiguration conf1 = CsvConfiguration.getInstance(store1);
+        final CsvConfiguration conf2 = CsvConfiguration.getInstance(store2);
+        final BusinessCalendar calendar1 = BusinessCalendar.newBuilder().cache(1024).csv(conf1).build();
+        final BusinessCalendar calendar2 = BusinessCalendar.newBuilder().index(2021, 2021).csv(conf2).build();
+
+        assertEquals("inventory", calendar1.getHoliday(LocalDate.of(2021, 12, 24)).name());
+        assertEquals("Obon", calendar1.getHoliday(LocalDate.of(2021, 8, 16)).name());
+        assertEquals("open on Obon", calendar2.getHoliday(LocalDate.of(2021, 8, 16)).name());
+        assertEquals("New Year's Eve", calendar2.getHoliday(LocalDate.of(2021, 12, 31)).name());
+        assertEquals("closed on Sundays", calendar1.getHoliday(LocalDate.of(2021, 12, 26)).name());
+        assertEquals(LocalDate.of(2021, 12, 25).atTime(15, 0), calendar1.getBusinessHourSlots(LocalDate.of(2021, 12, 25)).get(0).to());
+        assertEquals(LocalDate.of(2021, 12, 27).atTime(12, 0), calendar1.getBusinessHourSlots(LocalDate.of(2021, 12, 27)).get(0).to());
+        assertEquals(LocalDate.of(2021, 12, 28).atTime(17, 0), calendar2.getBusinessHourSlots(LocalDate.of(2021, 12, 28)).get(0).to());
+
+        // bases are shared by reference
+        final CsvConfiguration region = conf1.bases().get(0);
+        assertSame(region, conf2.bases().get(0));
+        final CsvConfiguration companyConf = region.bases().get(0);
+        assertEquals(List.of(), companyConf.bases());
+
+        // reloading a store doesn't reparse unmodified bases
+        final long regionVersion = region.version();
+        final long companyVersion = companyConf.version();
+        write(store1, "include,kanto/region.csv\nholiday,2021/12/23,inventory\nhours,MON,10-12\n");
+        conf1.reload();
+        assertEquals(regionVersion, region.version());
+        assertEquals(companyVersion, companyConf.version());
+        assertSame(region, conf1.bases().get(0));
+        assertFalse(calendar1.isHoliday(LocalDate.of(2021, 12, 24)));
+
+        // a modified base is reloaded once, and every store sees it
+        write(company, "holiday,12/30,closed for the year end\nholiday,12/31,New Year's Eve\nholiday,SUN,closed on Sundays\nhours,9-17\n");
+        assertTrue(company.toFile().setLastModified(company.toFile().lastModified() + 2000));
+        final long store1Version = conf1.version();
+        conf2.reload();
+        assertEquals(companyVersion + 1, companyConf.version());
+        assertTrue(store1Version < conf1.version());
+        assertTrue(calendar1.isHoliday(LocalDate.of(2021, 12, 30)));
+        assertTrue(calendar2.isHoliday(LocalDate.of(2021, 12, 30)));
+        assertFalse(calendar1.isHoliday(LocalDate.of(2021, 12, 29)));
+    }
+
+    @Test
+    void circularInclude() throws IOException {
+        final Path directory = Files.createTempDirectory("circular");
+        write(directory.resolve("a.csv"), "include,b.csv\nholiday,2021/12/24,a\n");
+        write(directory.resolve("b.csv"), "include,a.csv\nholiday,2021/12/25,b\n");
+        final CsvConfiguration a = CsvConfiguration.getInstance(directory.resolve("a.csv"));
+        final BusinessCalendar calendar = BusinessCalendar.newBuilder().csv(a).build();
+        assertEquals("a", calendar.getHoliday(LocalDate.of(2021, 12, 24)).name());
+        assertEquals("b", calendar.getHoliday(LocalDate.of(2021, 12, 25)).name());
+        assertEquals(List.of("Skipping line[1] (unable to parse): \"include,missing.csv\""),
+                CsvConfiguration.getInstance(write(directory.resolve("c.csv"), "include,missing.csv\n")).reload());
+    }
+
     void assertCal(BusinessCalendar expected, BusinessCalendar testTarget) {
         LocalDate from = LocalDate.of(2021, 1, 1);
         LocalDate to = LocalDate.of(2021, 12, 31);
@@ -273,6 +443,210 @@ class CsvBasedConfiguration {
 
     }
 
+    @Test
+    void coalescedSources() throws IOException, InterruptedException {
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicReference<String> content = new AtomicReference<>("holiday,2021/12/24,Christmas Eve\nhours,9-17\n");
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/store.csv", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException ignore) {
+            }
+            final byte[] bytes = content.get().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+        try {
+            final URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/store.csv");
+            final List<CsvConfiguration> confs = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                confs.add(CsvConfiguration.getInstance(url));
+            }
+            // downloaded and parsed once
+            assertEquals(1, requests.get());
+            for (CsvConfiguration conf : confs) {
+                assertSame(confs.get(0).rules(), conf.rules());
+            }
+
+            // concurrent reloads share one fetch, and every configuration of the URL gets the result
+            content.set("holiday,2021/12/25,Christmas\nhours,9-17\n");
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Thread> threads = new ArrayList<>();
+            for (CsvConfiguration conf : confs) {
+                final Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                        conf.reload();
+                    } catch (InterruptedException ignore) {
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(2, requests.get());
+            for (CsvConfiguration conf : confs) {
+                assertEquals("Christmas", conf.holiday().apply(LocalDate.of(2021, 12, 25)));
+            }
+
+            // path based configurations share the loader by the normalized path
+            final Path path = write("holiday,2021/12/24,Christmas Eve\n");
+            final CsvConfiguration conf1 = CsvConfiguration.getInstance(path);
+            final CsvConfiguration conf2 = CsvConfiguration.getInstance(path.getParent().resolve(".").resolve(path.getFileName()));
+            assertSame(conf1.rules(), conf2.rules());
+            write(path, "holiday,2021/12/31,New Year's Eve\n");
+            conf1.reload();
+            assertEquals("New Year's Eve", conf2.holiday().apply(LocalDate.of(2021, 12, 31)));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void sharedUrlCache() throws IOException {
+        final AtomicInteger requests = new AtomicInteger();
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/shared.csv", exchange -> {
+            requests.incrementAndGet();
+            final byte[] bytes = "holiday,2021/12/24,Christmas Eve\n".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+        final Path directory = Files.createTempDirectory("csvCache");
+        try {
+            final URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/shared.csv");
+            final CsvConfiguration conf;
+            System.setProperty("businessCalendar4j.csvCacheDir", directory.toString());
+            try {
+                conf = CsvConfiguration.getInstance(url);
+            } finally {
+                System.clearProperty("businessCalendar4j.csvCacheDir");
+            }
+            BusinessCalendar.newBuilder().csv(conf, Duration.ofHours(1)).build();
+            assertEquals(1, requests.get());
+
+            // another process sharing the directory fetched a new copy within the reload interval
+            final String key = url.toString();
+            new HolidayDataCache(directory, CsvSource.cacheFileName(key), Duration.ZERO)
+                    .write(key, "holiday,2021/12/31,New Year's Eve\n".getBytes(StandardCharsets.UTF_8), Instant.now());
+            conf.reload();
+            assertEquals(1, requests.get());
+            assertEquals("New Year's Eve", conf.holiday().apply(LocalDate.of(2021, 12, 31)));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void staleUrlLoadNotShared() throws IOException, InterruptedException {
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicBoolean failing = new AtomicBoolean();
+        final AtomicReference<String> content = new AtomicReference<>("holiday,2021/12/24,Christmas Eve\n");
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/stale.csv", exchange -> {
+            requests.incrementAndGet();
+            if (failing.get()) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+            final byte[] bytes = content.get().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+        try {
+            final URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/stale.csv");
+            final CsvConfiguration conf1 = CsvConfiguration.getInstance(url);
+            BusinessCalendar.newBuilder().csv(conf1, Duration.ofMillis(300)).build();
+            assertEquals(1, requests.get());
+
+            // loaded within the reload interval: shared
+            content.set("holiday,2021/12/25,Christmas\n");
+            final CsvConfiguration conf2 = CsvConfiguration.getInstance(url);
+            assertEquals(1, requests.get());
+            assertSame(conf1.rules(), conf2.rules());
+
+            // the scheduled reloads fail, and the last load gets older than the interval
+            failing.set(true);
+            for (int i = 0; i < 100 && requests.get() < 3; i++) {
+                //noinspection BusyWait
+                Thread.sleep(100);
+            }
+            assertTrue(3 <= requests.get());
+            failing.set(false);
+            final CsvConfiguration conf3 = CsvConfiguration.getInstance(url);
+            assertEquals("Christmas", conf3.holiday().apply(LocalDate.of(2021, 12, 25)));
+            assertNull(conf3.holiday().apply(LocalDate.of(2021, 12, 24)));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void unchangedReload() throws IOException, InterruptedException {
+        final Path path = write("holiday,2021/12/24,Christmas Eve\n");
+        final CsvConfiguration conf = CsvConfiguration.getInstance(path);
+        final AtomicInteger notified = new AtomicInteger();
+        conf.addReloadListener(change -> notified.incrementAndGet());
+        final long version = conf.version();
+        // same content, rewritten
+        write(path, "holiday,2021/12/24,Christmas Eve\n");
+        conf.reload();
+        assertEquals(version, conf.version());
+        write(path, "holiday,2021/12/25,Christmas\n");
+        conf.reload();
+        assertEquals(version + 1, conf.version());
+        Thread.sleep(200);
+        assertEquals(1, notified.get());
+    }
+
+    @Test
+    void buildAsync() throws IOException {
+        final Path path = write("holiday,2021/1/1,never wins\nholiday,2021/12/24,Christmas Eve\nhours,10-16\n");
+        final BusinessCalendarBuilder builder = BusinessCalendar.newBuilder().holiday(BusinessCalendar.JAPAN.PUBLIC_HOLIDAYS)
+                .csv(path).hours("9-17");
+        final BusinessCalendar calendar = builder.buildAsync().join();
+        assertThrows(IllegalStateException.class, builder::buildAsync);
+        // rules keep the order of the builder calls
+        assertNotEquals("never wins", calendar.getHoliday(LocalDate.of(2021, 1, 1)).name());
+        assertEquals("Christmas Eve", calendar.getHoliday(LocalDate.of(2021, 12, 24)).name());
+        assertEquals(LocalDate.of(2021, 12, 23).atTime(16, 0), calendar.getBusinessHourSlots(LocalDate.of(2021, 12, 23)).get(0).to());
+
+        final Map<String, BusinessCalendarBuilder> builders = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            builders.put("store" + i, BusinessCalendar.newBuilder().index(2021, 2021)
+                    .csv(write("holiday,2021/12/" + (i + 1) + ",inventory\n")));
+        }
+        final BusinessCalendarBuilder built = BusinessCalendar.newBuilder();
+        built.build();
+        builders.put("built", built);
+        final BulkBuild<String> bulkBuild = BusinessCalendar.buildAll(builders, 4).join();
+        assertTrue(bulkBuild.isDone());
+        assertEquals(21, bulkBuild.getTotal());
+        assertEquals(21, bulkBuild.getCompleted());
+        assertEquals(20, bulkBuild.getCalendars().size());
+        assertEquals(Set.of("built"), bulkBuild.getFailures().keySet());
+        assertInstanceOf(IllegalStateException.class, bulkBuild.getFailures().get("built"));
+        assertEquals("inventory", bulkBuild.getCalendars().get("store9").getHoliday(LocalDate.of(2021, 12, 10)).name());
+        assertTrue(BusinessCalendar.buildAll(Map.of(), 4).isDone());
+        assertThrows(IllegalArgumentException.class, () -> BusinessCalendar.buildAll(builders, 0));
+    }
+
     static Path write(String content) throws IOException {
         final Path path = File.createTempFile("test", "test").toPath();
         return write(path, content);
@@ -0,0 +1,132 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Execution(ExecutionMode.CONCURRENT)
+class CsvRulesTest {
+    @Test
+    void sharedByContent() throws IOException {
+        final CsvConfiguration store1 = CsvConfiguration.getInstance(CsvBasedConfiguration.write(
+                "holiday,2021/12/24,Christmas Eve\nholiday,SAT,SUN,weekend\nhours,9-17\n"));
+        final CsvConfiguration store2 = CsvConfiguration.getInstance(CsvBasedConfiguration.write(
+                "# same rules, written differently\nymdFormat,yyyy-MM-dd\nholiday,2021-12-24,Christmas Eve\nholiday,sun,sat,weekend\nhours,9:00 - 17:00\n"));
+        final CsvConfiguration store3 = CsvConfiguration.getInstance(CsvBasedConfiguration.write(
+                "holiday,2021/12/24,Christmas Eve\nholiday,SAT,SUN,weekend\nhours,10-17\n"));
+        assertSame(store1.rules(), store2.rules());
+        assertNotSame(store1.rules(), store3.rules());
+        assertEquals(3, store1.rules().rules().size());
+
+        final BusinessCalendar calendar = BusinessCalendar.newBuilder().csv(store2).build();
+        assertEquals("Christmas Eve", calendar.getHoliday(LocalDate.of(2021, 12, 24)).name());
+        assertEquals("weekend", calendar.getHoliday(LocalDate.of(2021, 12, 25)).name());
+        assertEquals(1, calendar.getBusinessHourSlots(LocalDate.of(2021, 12, 23)).size());
+    }
+
+    @Test
+    void normalised() {
+        assertEquals(CsvRule.of(false, null, null, 2, List.of(DayOfWeek.MONDAY), "9-12,13-17"),
+                CsvRule.of(false, null, null, 2, List.of(DayOfWeek.MONDAY), "13:00-17:00, 9:00-12:00"));
+        assertNotEquals(CsvRule.of(true, null, null, null, List.of(), "Holiday"),
+                CsvRule.of(true, null, null, null, List.of(), "holiday"));
+    }
+
+    @Test
+    void releasedWhenUnused() throws IOException, InterruptedException {
+        final Path path = CsvBasedConfiguration.write("holiday,1999/12/31,CsvRulesTest.releasedWhenUnused\n");
+        final List<CsvRule> rules = CsvConfiguration.getInstance(path).rules().rules();
+        assertTrue(CsvRules.registered(rules));
+        for (int i = 0; i < 100 && CsvRules.registered(rules); i++) {
+            System.gc();
+            //noinspection BusyWait
+            Thread.sleep(10);
+        }
+        assertFalse(CsvRules.registered(rules));
+        assertTrue(0 < CsvRules.registered());
+    }
+
+    @Test
+    void lineOrderPrecedence() throws IOException {
+        final CsvConfiguration conf = CsvConfiguration.getInstance(CsvBasedConfiguration.write("""
+                holiday,12/24,Christmas Eve (month-day)
+                holiday,SUN,closed on Sundays
+                holiday,2021/12/26,Boxing Day (date)
+                holiday,2021/12/24,Christmas Eve (date)
+                holiday,2021/12/27,Monday after Boxing Day
+                holiday,12/27,never wins
+                holiday,2,MON,Second Monday
+                hours,2021/12/23,10-12
+                hours,12/23,never wins
+                hours,THU,9-17
+                hours,2021/12/30,never wins
+                """));
+        final BusinessCalendar calendar = BusinessCalendar.newBuilder().csv(conf).build();
+        assertEquals("Christmas Eve (month-day)", calendar.getHoliday(LocalDate.of(2021, 12, 24)).name());
+        assertEquals("closed on Sundays", calendar.getHoliday(LocalDate.of(2021, 12, 26)).name());
+        assertEquals("Monday after Boxing Day", calendar.getHoliday(LocalDate.of(2021, 12, 27)).name());
+        assertEquals("Second Monday", calendar.getHoliday(LocalDate.of(2021, 12, 13)).name());
+        assertNull(calendar.getHoliday(LocalDate.of(2021, 12, 20)));
+        assertEquals(LocalDate.of(2021, 12, 23).atTime(12, 0), calendar.getBusinessHourSlots(LocalDate.of(2021, 12, 23)).get(0).to());
+        assertEquals(LocalDate.of(2021, 12, 30).atTime(17, 0), calendar.getBusinessHourSlots(LocalDate.of(2021, 12, 30)).get(0).to());
+
+        // same as testing every rule in line order
+        for (LocalDate date = LocalDate.of(2021, 1, 1); date.getYear() == 2021; date = date.plusDays(1)) {
+            String expected = null;
+            for (CsvRule rule : conf.rules().rules()) {
+                if (rule.holiday() && rule.predicate().test(date)) {
+                    expected = rule.name();
+                    break;
+                }
+            }
+            assertEquals(expected, conf.rules().holiday(date));
+        }
+    }
+
+    @Test
+    void changes() {
+        final CsvRule christmasEve = CsvRule.of(true, LocalDate.of(2021, 12, 24), null, null, List.of(), "Christmas Eve");
+        final CsvRule newYearsEve = CsvRule.of(true, LocalDate.of(2021, 12, 31), null, null, List.of(), "New Year's Eve");
+        final CsvRule sunday = CsvRule.of(true, null, null, null, List.of(DayOfWeek.SUNDAY), "Sunday");
+        final CsvRule hours = CsvRule.of(false, null, null, null, List.of(), "9-17");
+        final CsvRules before = CsvRules.of(List.of(christmasEve, sunday, hours));
+
+        assertTrue(CsvRules.changes(before, CsvRules.of(List.of(christmasEve, sunday, hours))).isEmpty());
+
+        final DateChanges added = CsvRules.changes(before, CsvRules.of(List.of(christmasEve, newYearsEve, sunday, hours)));
+        assertFalse(added.all());
+        assertTrue(added.contains(LocalDate.of(2021, 12, 31)));
+        assertFalse(added.contains(LocalDate.of(2021, 12, 24)));
+        assertFalse(added.intersects(LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31)));
+
+        final DateChanges removed = CsvRules.changes(before, CsvRules.of(List.of(christmasEve, hours)));
+        assertTrue(removed.contains(LocalDate.of(2021, 12, 26)));
+        assertFalse(removed.contains(LocalDate.of(2021, 12, 27)));
+        assertTrue(removed.intersects(LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31)));
+
+        assertTrue(CsvRules.changes(before, CsvRules.of(List.of(sunday, christmasEve, hours))).all());
+    }
+}
@@ -0,0 +1,161 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Execution(ExecutionMode.CONCURRENT)
+class DayCacheTest {
+    @Test
+    void cachesOpaquePredicates() {
+        final AtomicInteger evaluated = new AtomicInteger();
+        final BusinessCalendar calendar = BusinessCalendar.newBuilder()
+                .cache(1000)
+                .on(date -> {
+                    evaluated.incrementAndGet();
+                    return date.getDayOfMonth() == 13 && date.getDayOfWeek() == DayOfWeek.FRIDAY;
+                }).holiday("Friday the 13th")
+                .hours("9-17")
+                .build();
+        final LocalDate friday13th = LocalDate.of(2021, 8, 13);
+        assertEquals("Friday the 13th", calendar.getHoliday(friday13th).name());
+        assertTrue(calendar.isHoliday(friday13th));
+        assertTrue(calendar.getBusinessHourSlots(friday13th).isEmpty());
+        assertEquals(1, evaluated.get());
+
+        final LocalDate saturday = LocalDate.of(2021, 8, 14);
+        assertEquals(1, calendar.getBusinessHourSlots(saturday).size());
+        assertFalse(calendar.isHoliday(saturday));
+        assertEquals(2, evaluated.get());
+        assertThrows(UnsupportedOperationException.class, () -> calendar.getBusinessHourSlots(saturday).clear());
+
+        final CacheStats stats = calendar.getCacheStats();
+        assertEquals(2, stats.misses());
+        assertEquals(4, stats.hits());
+        assertEquals(0, stats.evictions());
+    }
+
+    @Test
+    void bounded() {
+        final BusinessCalendar cached = BusinessCalendar.newBuilder()
+                .cache(64)
+                .holiday(BusinessCalendar.UNITED_STATES.PUBLIC_HOLIDAYS, BusinessCalendar.CLOSED_ON_SATURDAYS_AND_SUNDAYS)
+                .build();
+        final BusinessCalendar uncached = BusinessCalendar.newBuilder()
+                .holiday(BusinessCalendar.UNITED_STATES.PUBLIC_HOLIDAYS, BusinessCalendar.CLOSED_ON_SATURDAYS_AND_SUNDAYS)
+                .build();
+        final LocalDate from = LocalDate.of(2000, 1, 1);
+        final LocalDate to = LocalDate.of(2020, 12, 31);
+        assertEquals(uncached.getHolidaysBetween(from, to), cached.getHolidaysBetween(from, to));
+        assertEquals(uncached.getHolidaysBetween(from, to), cached.getHolidaysBetween(from, to));
+        assertTrue(0 < cached.getCacheStats().evictions());
+        assertEquals(new CacheStats(0, 0, 0, 0), uncached.getCacheStats());
+    }
+
+    @Test
+    void capacity() {
+        assertEquals(DayCache.WAYS, new DayCache(1, List.of(), date -> null, BusinessCalendarMetrics.NOOP).capacity());
+        assertEquals(1024, new DayCache(1000, List.of(), date -> null, BusinessCalendarMetrics.NOOP).capacity());
+        assertEquals(1024, new DayCache(1024, List.of(), date -> null, BusinessCalendarMetrics.NOOP).capacity());
+        assertThrows(IllegalArgumentException.class, () -> BusinessCalendar.newBuilder().cache(0));
+    }
+
+    @Test
+    void invalidatedOnReload() throws IOException {
+        final Path path = CsvBasedConfiguration.write("holiday,2021/12/24,just holiday\n");
+        final CsvConfiguration conf = CsvConfiguration.getInstance(path);
+        final BusinessCalendar calendar = BusinessCalendar.newBuilder().cache(100).csv(conf).build();
+        assertTrue(calendar.isHoliday(LocalDate.of(2021, 12, 24)));
+        assertFalse(calendar.isHoliday(LocalDate.of(2021, 11, 24)));
+
+        CsvBasedConfiguration.write(path, "holiday,2021/11/24,just holiday\n");
+        conf.reload();
+        assertFalse(calendar.isHoliday(LocalDate.of(2021, 12, 24)));
+        assertTrue(calendar.isHoliday(LocalDate.of(2021, 11, 24)));
+        assertEquals(1, calendar.getCacheStats().invalidations());
+    }
+
+    @Test
+    void onlyChangedDatesInvalidated() throws IOException {
+        final Path path = CsvBasedConfiguration.write("holiday,2021/12/24,just holiday\nholiday,SUN,closed on Sundays\n");
+        final CsvConfiguration conf = CsvConfiguration.getInstance(path);
+        final AtomicInteger evaluated = new AtomicInteger();
+        final BusinessCalendar calendar = BusinessCalendar.newBuilder().cache(4096)
+                .holiday(date -> {
+                    evaluated.incrementAndGet();
+                    return null;
+                })
+                .csv(conf).build();
+        final LocalDate from = LocalDate.of(2021, 1, 1);
+        final LocalDate to = LocalDate.of(2021, 12, 31);
+        final List<Holiday> before = calendar.getHolidaysBetween(from, to);
+        assertEquals(365, evaluated.get());
+
+        CsvBasedConfiguration.write(path, "holiday,2021/11/24,just holiday\nholiday,SUN,closed on Sundays\n");
+        conf.reload();
+        final List<Holiday> after = calendar.getHolidaysBetween(from, to);
+        assertEquals(365 + 2, evaluated.get());
+        assertEquals(before.size(), after.size());
+        assertEquals(LocalDate.of(2021, 11, 24), after.get(after.size() - 6).date());
+        assertEquals(1, calendar.getCacheStats().invalidations());
+
+        // Sundays are recurring: every Sunday and Saturday is evaluated again
+        CsvBasedConfiguration.write(path, "holiday,2021/11/24,just holiday\nholiday,SAT,closed on Saturdays\n");
+        conf.reload();
+        assertEquals(before.size(), calendar.getHolidaysBetween(from, to).size());
+        assertEquals(365 + 2 + 52 + 52, evaluated.get());
+    }
+
+    @Test
+    void concurrentAccess() throws ExecutionException, InterruptedException {
+        final BusinessCalendar cached = BusinessCalendar.newBuilder()
+                .cache(256)
+                .holiday(BusinessCalendar.JAPAN.PUBLIC_HOLIDAYS)
+                .build();
+        final BusinessCalendar uncached = BusinessCalendar.newBuilder()
+                .holiday(BusinessCalendar.JAPAN.PUBLIC_HOLIDAYS)
+                .build();
+        final List<Holiday> expected = uncached.getHolidaysBetween(LocalDate.of(2010, 1, 1), LocalDate.of(2012, 12, 31));
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<List<Holiday>>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executorService.submit(() -> cached.getHolidaysBetween(LocalDate.of(2010, 1, 1), LocalDate.of(2012, 12, 31))));
+            }
+            for (Future<List<Holiday>> future : futures) {
+                assertEquals(expected, future.get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
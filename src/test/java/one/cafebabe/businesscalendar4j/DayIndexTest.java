@@ -0,0 +1,156 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Execution(ExecutionMode.SAME_THREAD)
+class DayIndexTest {
+    private static BusinessCalendarBuilder japan() {
+        return BusinessCalendar.newBuilder()
+                .holiday(BusinessCalendar.JAPAN.PUBLIC_HOLIDAYS)
+                .on(DayOfWeek.SUNDAY).holiday("Sunday")
+                .hours("10-12,13-24")
+                .on(DayOfWeek.SATURDAY).hours("10-15");
+    }
+
+    @Test
+    void sameResults() {
+        final BusinessCalendar plain = japan().build();
+        for (boolean offHeap : new boolean[]{false, true}) {
+            final BusinessCalendarBuilder builder = japan().index(2020, 2021);
+            if (offHeap) {
+                builder.offHeap();
+            }
+            try (BusinessCalendar indexed = builder.build()) {
+                for (LocalDate date = LocalDate.of(2019, 12, 1); date.isBefore(LocalDate.of(2022, 2, 1)); date = date.plusDays(1)) {
+                    assertEquals(plain.getHoliday(date), indexed.getHoliday(date));
+                    assertEquals(plain.getBusinessHourSlots(date), indexed.getBusinessHourSlots(date));
+                }
+                assertEquals(LocalDateTime.of(2021, 1, 2, 10, 0),
+                        indexed.nextBusinessHourStart(LocalDateTime.of(2020, 12, 31, 23, 0)));
+            }
+        }
+    }
+
+    @Test
+    void close() {
+        final long before = DayIndex.offHeapBytes();
+        final BusinessCalendar calendar = japan().index(2020, 2021).offHeap().build();
+        assertEquals(before + (366 + 365) * DayIndex.BYTES_PER_DAY, DayIndex.offHeapBytes());
+        final BusinessCalendar english = calendar.withLocale(Locale.ENGLISH);
+        assertTrue(english.isHoliday(LocalDate.of(2021, 1, 1)));
+
+        calendar.close();
+        assertEquals(before, DayIndex.offHeapBytes());
+        assertThrows(IllegalStateException.class, () -> calendar.isHoliday(LocalDate.of(2021, 1, 1)));
+        assertThrows(IllegalStateException.class, () -> english.isHoliday(LocalDate.of(2021, 1, 1)));
+        // closing twice is harmless
+        calendar.close();
+        assertEquals(before, DayIndex.offHeapBytes());
+
+        assertThrows(IllegalStateException.class, () -> BusinessCalendar.newBuilder().offHeap().build());
+        assertThrows(IllegalArgumentException.class, () -> BusinessCalendar.newBuilder().index(2021, 2020));
+    }
+
+    @Test
+    void leakDetection() throws InterruptedException {
+        final long leaks = DayIndex.leaks();
+        final long before = DayIndex.offHeapBytes();
+        //noinspection resource
+        japan().index(2020, 2020).offHeap().build();
+        for (int i = 0; i < 100 && DayIndex.leaks() == leaks; i++) {
+            System.gc();
+            //noinspection BusyWait
+            Thread.sleep(10);
+        }
+        assertEquals(leaks + 1, DayIndex.leaks());
+        assertEquals(before, DayIndex.offHeapBytes());
+    }
+
+    @Test
+    void onHeapNotTracked() throws InterruptedException {
+        final long leaks = DayIndex.leaks();
+        final long before = DayIndex.offHeapBytes();
+        //noinspection resource
+        japan().index(2020, 2020).build();
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            //noinspection BusyWait
+            Thread.sleep(10);
+        }
+        assertEquals(leaks, DayIndex.leaks());
+        assertEquals(before, DayIndex.offHeapBytes());
+    }
+
+    @Test
+    void recompiledOnReload() throws IOException {
+        final Path path = CsvBasedConfiguration.write("holiday,2021/12/24,just holiday\n");
+        final CsvConfiguration conf = CsvConfiguration.getInstance(path);
+        try (BusinessCalendar calendar = BusinessCalendar.newBuilder().index(2021, 2021).offHeap().csv(conf).build()) {
+            final long bytes = DayIndex.offHeapBytes();
+            assertTrue(calendar.isHoliday(LocalDate.of(2021, 12, 24)));
+            CsvBasedConfiguration.write(path, "holiday,2021/11/24,just holiday\n");
+            conf.reload();
+            assertFalse(calendar.isHoliday(LocalDate.of(2021, 12, 24)));
+            assertTrue(calendar.isHoliday(LocalDate.of(2021, 11, 24)));
+            assertEquals(bytes, DayIndex.offHeapBytes());
+        }
+    }
+
+    @Test
+    void incrementalRecompile() throws IOException {
+        final Path path = CsvBasedConfiguration.write("holiday,2021/12/24,just holiday\nhours,9-17\n");
+        final CsvConfiguration conf = CsvConfiguration.getInstance(path);
+        final AtomicInteger evaluated = new AtomicInteger();
+        try (BusinessCalendar calendar = BusinessCalendar.newBuilder().index(2020, 2022)
+                .holiday(date -> {
+                    evaluated.incrementAndGet();
+                    return null;
+                })
+                .csv(conf).build()) {
+            assertEquals(366 + 365 + 365, evaluated.get());
+
+            CsvBasedConfiguration.write(path, "holiday,2021/11/24,just holiday\nhours,9-17\n");
+            conf.reload();
+            assertFalse(calendar.isHoliday(LocalDate.of(2021, 12, 24)));
+            assertTrue(calendar.isHoliday(LocalDate.of(2021, 11, 24)));
+            assertFalse(calendar.isHoliday(LocalDate.of(2020, 11, 24)));
+            assertFalse(calendar.isHoliday(LocalDate.of(2022, 11, 24)));
+            // only the two changed dates are evaluated again
+            assertEquals(366 + 365 + 365 + 2, evaluated.get());
+
+            // reordered rules may change every date
+            CsvBasedConfiguration.write(path, "hours,9-17\nholiday,2021/11/24,just holiday\n");
+            conf.reload();
+            assertTrue(calendar.isHoliday(LocalDate.of(2021, 11, 24)));
+            assertFalse(calendar.isHoliday(LocalDate.of(2020, 11, 24)));
+            assertEquals((366 + 365) * 2 + 365 + 2, evaluated.get());
+        }
+    }
+}
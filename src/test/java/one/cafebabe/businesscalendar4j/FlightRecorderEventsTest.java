@@ -0,0 +1,96 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Execution(ExecutionMode.SAME_THREAD)
+class FlightRecorderEventsTest {
+    @Test
+    void events() throws IOException {
+        final List<RecordedEvent> events;
+        final Path path = CsvBasedConfiguration.write("holiday,2021/12/24,just holiday\nhour,sat,13-17\n");
+        try (Recording recording = new Recording()) {
+            recording.enable("one.cafebabe.businesscalendar4j.Reload");
+            recording.enable("one.cafebabe.businesscalendar4j.Fallback");
+            recording.enable("one.cafebabe.businesscalendar4j.LongScan");
+            recording.start();
+            final BusinessCalendar calendar = BusinessCalendar.newBuilder().csv(path)
+                    .on(DayOfWeek.SUNDAY).holiday("Sunday").build();
+            CsvConfiguration.getInstance(new URL("http://localhost:1/doesnotexist.csv"));
+            calendar.getHolidaysBetween(LocalDate.of(2000, 1, 1), LocalDate.of(2020, 12, 31));
+            // shorter than the threshold
+            calendar.getHolidaysBetween(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 31));
+            recording.stop();
+            events = read(recording);
+        }
+        final RecordedEvent reload = events.stream()
+                .filter(e -> e.getEventType().getName().equals("one.cafebabe.businesscalendar4j.Reload"))
+                .filter(e -> e.getString("source").equals(path.toAbsolutePath().toString())).findFirst().orElseThrow();
+        assertTrue(reload.getBoolean("success"));
+        assertEquals(1, reload.getInt("warnings"));
+        assertTrue(0 < reload.getLong("bytes"));
+
+        final RecordedEvent fallback = events.stream()
+                .filter(e -> e.getEventType().getName().equals("one.cafebabe.businesscalendar4j.Fallback"))
+                .filter(e -> e.getString("source").equals("http://localhost:1/doesnotexist.csv")).findFirst().orElseThrow();
+        assertEquals("previous configuration", fallback.getString("fallback"));
+
+        final List<RecordedEvent> scans = events.stream()
+                .filter(e -> e.getEventType().getName().equals("one.cafebabe.businesscalendar4j.LongScan"))
+                .filter(e -> e.getString("from").equals("2000-01-01")).toList();
+        assertEquals(1, scans.size());
+        assertEquals("getHolidaysBetween", scans.get(0).getString("method"));
+        assertEquals(7671, scans.get(0).getLong("days"));
+    }
+
+    @Test
+    void disabledByDefault() throws IOException {
+        final List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.start();
+            BusinessCalendar.newBuilder().build().getHolidaysBetween(LocalDate.of(2000, 1, 1), LocalDate.of(2020, 12, 31));
+            recording.stop();
+            events = read(recording);
+        }
+        assertTrue(events.stream().noneMatch(e -> e.getEventType().getName().startsWith("one.cafebabe")));
+    }
+
+    private static List<RecordedEvent> read(Recording recording) throws IOException {
+        final Path file = Files.createTempFile("businessCalendar4j", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
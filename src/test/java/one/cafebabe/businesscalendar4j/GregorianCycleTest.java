@@ -0,0 +1,77 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Execution(ExecutionMode.CONCURRENT)
+class GregorianCycleTest {
+    private static BusinessCalendarBuilder unitedStates() {
+        return BusinessCalendar.newBuilder().locale(Locale.ENGLISH)
+                .holiday(BusinessCalendar.UNITED_STATES.PUBLIC_HOLIDAYS)
+                .on(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY).holiday("weekend")
+                .on(12, 24).holiday("Christmas Eve")
+                .on(2, DayOfWeek.WEDNESDAY).holiday("inventory");
+    }
+
+    @Test
+    void sameAsRules() {
+        final BusinessCalendar rules = unitedStates().build();
+        final BusinessCalendar cycle = unitedStates().gregorianCycle().build();
+        for (int year : new int[]{-401, 1600, 1970, 2021, 2369, 2370, 2400, 99999}) {
+            final LocalDate first = LocalDate.of(year, 1, 1);
+            final LocalDate last = LocalDate.of(year, 12, 31);
+            for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+                assertEquals(rules.getHoliday(date), cycle.getHoliday(date), date.toString());
+            }
+            assertEquals(rules.getBusinessDaysBetween(first, last).size(), cycle.countBusinessDays(first, last), String.valueOf(year));
+            assertEquals(rules.countBusinessDays(first.minusDays(40), last), cycle.countBusinessDays(last, first.minusDays(40)));
+        }
+    }
+
+    @Test
+    void repeatsEvery400Years() {
+        final BusinessCalendar cycle = unitedStates().gregorianCycle().build();
+        final long perCycle = cycle.countBusinessDays(LocalDate.of(2000, 1, 1), LocalDate.of(2399, 12, 31));
+        assertEquals(perCycle, cycle.countBusinessDays(LocalDate.of(1777, 7, 4), LocalDate.of(2177, 7, 3)));
+        assertEquals(perCycle * 2500, cycle.countBusinessDays(LocalDate.of(-500_000, 3, 1), LocalDate.of(500_000, 2, 29)));
+        assertEquals(LocalDate.of(2421, 12, 23), cycle.lastBusinessDay(LocalDate.of(2421, 12, 26)));
+    }
+
+    @Test
+    void onlyRuleBasedCalendars() {
+        assertDoesNotThrow(() -> BusinessCalendar.newBuilder().holiday(BusinessCalendar.CLOSED_ON_SATURDAYS_AND_SUNDAYS)
+                .holiday(BusinessCalendar.UNITED_STATES.THANKSGIVING_DAY).on(1, DayOfWeek.MONDAY).hours("10-15")
+                .on(LocalDate.of(2021, 12, 24)).hours("9-12").gregorianCycle().build());
+        assertThrows(IllegalStateException.class, () -> unitedStates().on(LocalDate.of(2021, 12, 31)).holiday("closed")
+                .gregorianCycle().build());
+        assertThrows(IllegalStateException.class, () -> unitedStates().on(2021, 12, 31).holiday("closed")
+                .gregorianCycle().build());
+        assertThrows(IllegalStateException.class, () -> unitedStates().on(date -> date.getYear() % 7 == 0).holiday("closed")
+                .gregorianCycle().build());
+        assertThrows(IllegalStateException.class, () -> unitedStates().holiday(BusinessCalendar.JAPAN.PUBLIC_HOLIDAYS)
+                .gregorianCycle().build());
+        assertThrows(IllegalStateException.class, () -> unitedStates().holiday(date -> null).gregorianCycle().build());
+    }
+}
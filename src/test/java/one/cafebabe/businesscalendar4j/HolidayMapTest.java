@@ -0,0 +1,148 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Execution(ExecutionMode.CONCURRENT)
+class HolidayMapTest {
+    @Test
+    void lookup() {
+        final TreeMap<LocalDate, String> map = new TreeMap<>();
+        map.put(LocalDate.of(2021, 1, 1), "japanese.元日");
+        map.put(LocalDate.of(2022, 1, 1), "japanese.元日");
+        map.put(LocalDate.of(2021, 5, 3), "japanese.憲法記念日");
+        final HolidayMap holidayMap = HolidayMap.of(map);
+        assertEquals(3, holidayMap.size());
+        assertEquals("japanese.元日", holidayMap.apply(LocalDate.of(2022, 1, 1)));
+        assertEquals("japanese.憲法記念日", holidayMap.apply(LocalDate.of(2021, 5, 3)));
+        assertNull(holidayMap.apply(LocalDate.of(2021, 5, 4)));
+        assertNull(holidayMap.apply(LocalDate.MAX));
+        assertTrue(holidayMap.containsKey(LocalDate.of(2021, 1, 1)));
+        assertFalse(holidayMap.containsKey(LocalDate.MIN));
+        assertEquals(LocalDate.of(2021, 1, 1), holidayMap.firstKey());
+        assertEquals(LocalDate.of(2022, 1, 1), holidayMap.lastKey());
+
+        final HolidayMap sub = holidayMap.subMap(LocalDate.of(2021, 1, 2), LocalDate.of(2022, 1, 1));
+        assertEquals(1, sub.size());
+        assertEquals(LocalDate.of(2021, 5, 3), sub.firstKey());
+        assertEquals(0, holidayMap.subMap(LocalDate.of(2023, 1, 1), LocalDate.of(2022, 1, 1)).size());
+        assertThrows(NoSuchElementException.class, HolidayMap.EMPTY::firstKey);
+        assertThrows(NoSuchElementException.class, HolidayMap.EMPTY::lastKey);
+    }
+
+    @Test
+    void differences() {
+        final TreeMap<LocalDate, String> before = new TreeMap<>();
+        before.put(LocalDate.of(2021, 1, 1), "japanese.元日");
+        before.put(LocalDate.of(2021, 5, 3), "japanese.憲法記念日");
+        // every table numbers its own names, so the same name may have different ids in different tables
+        final TreeMap<LocalDate, String> after = new TreeMap<>();
+        after.put(LocalDate.of(2021, 1, 1), "japanese.憲法記念日");
+        after.put(LocalDate.of(2021, 5, 3), "japanese.憲法記念日");
+        after.put(LocalDate.of(2021, 5, 4), "japanese.みどりの日");
+        final int[] differences = HolidayMap.of(before).differences(HolidayMap.of(after));
+        assertArrayEquals(new int[]{(int) LocalDate.of(2021, 1, 1).toEpochDay(), (int) LocalDate.of(2021, 5, 4).toEpochDay()},
+                differences);
+        assertEquals(0, HolidayMap.of(after).differences(HolidayMap.of(new TreeMap<>(after))).length);
+    }
+
+    @Test
+    void syukujitsu() throws IOException {
+        final TreeMap<LocalDate, String> map = syukujitsuMap();
+        final HolidayMap holidayMap = HolidayMap.of(map);
+        assertEquals(map.size(), holidayMap.size());
+        for (Map.Entry<LocalDate, String> entry : map.entrySet()) {
+            assertEquals(entry.getValue(), holidayMap.apply(entry.getKey()));
+        }
+    }
+
+    @Test
+    void footprint() throws IOException {
+        final TreeMap<LocalDate, String> map = syukujitsuMap();
+        final HolidayMap holidayMap = HolidayMap.of(map);
+        // loaded again, with new name strings
+        final HolidayMap another = HolidayMap.of(syukujitsuMap());
+        final Set<String> names = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (LocalDate date : map.keySet()) {
+            // tables holding the same names share the name strings
+            assertSame(holidayMap.apply(date), another.apply(date));
+            names.add(holidayMap.apply(date));
+        }
+        long holidayMapBytes = holidayMap.estimatedBytes();
+        for (String name : names) {
+            holidayMapBytes += stringBytes(name);
+        }
+
+        // TreeMap: TreeMap (48 bytes) + TreeMap.Entry (40 bytes) and LocalDate (24 bytes) per holiday, plus the names
+        final Set<String> treeMapNames = Collections.newSetFromMap(new IdentityHashMap<>());
+        treeMapNames.addAll(map.values());
+        long treeMapBytes = 48 + 64L * map.size();
+        for (String name : treeMapNames) {
+            treeMapBytes += stringBytes(name);
+        }
+        assertTrue(holidayMapBytes * 5 < treeMapBytes, holidayMapBytes + " bytes, TreeMap: " + treeMapBytes + " bytes");
+    }
+
+    @Test
+    void namesReleasedWhenUnused() throws InterruptedException {
+        final String name = "HolidayMapTest.namesReleasedWhenUnused." + System.nanoTime();
+        TreeMap<LocalDate, String> map = new TreeMap<>();
+        // an equal string, but another instance
+        map.put(LocalDate.of(2021, 1, 1), new String(name.toCharArray()));
+        HolidayMap holidayMap = HolidayMap.of(map);
+        assertTrue(HolidayMap.interned(name));
+        assertEquals(name, holidayMap.apply(LocalDate.of(2021, 1, 1)));
+        //noinspection UnusedAssignment
+        map = null;
+        //noinspection UnusedAssignment
+        holidayMap = null;
+        for (int i = 0; i < 100 && HolidayMap.interned(name); i++) {
+            System.gc();
+            //noinspection BusyWait
+            Thread.sleep(10);
+        }
+        assertFalse(HolidayMap.interned(name));
+    }
+
+    private static TreeMap<LocalDate, String> syukujitsuMap() throws IOException {
+        //noinspection ConstantConditions
+        return CSVHolidays.load(HolidayMapTest.class.getResourceAsStream("/syukujitsu.csv"),
+                "japanese.", Charset.forName("Shift_JIS"));
+    }
+
+    /**
+     * @return String (24 bytes) and its byte[], 1 byte per char in Latin-1 and 2 bytes otherwise
+     */
+    private static long stringBytes(String string) {
+        final boolean latin1 = string.chars().allMatch(c -> c <= 0xff);
+        return 24 + ((16L + (long) string.length() * (latin1 ? 1 : 2) + 7) & ~7L);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Execution(ExecutionMode.CONCURRENT)
+class HolidayNamesTest {
+    @Test
+    void resolve() {
+        final HolidayNames names = HolidayNames.of(Locale.ENGLISH);
+        assertSame(names, HolidayNames.of(Locale.ENGLISH));
+        assertEquals("New Year's Day", names.get("unitedStates.NewYearsDay"));
+        assertEquals("Christmas Day (observed)", names.get("${unitedStates.ChristmasDay} (${unitedStates.observed})"));
+        assertEquals("[Christmas Day]", names.get("[${unitedStates.ChristmasDay}]"));
+        // not a placeholder
+        assertEquals("${1} ${} ${unitedStates.observed", names.get("${1} ${} ${unitedStates.observed"));
+        assertEquals("Friday the 13th", names.get("Friday the 13th"));
+
+        assertEquals("クリスマス (振替)", HolidayNames.of(Locale.JAPANESE).get("${unitedStates.ChristmasDay} (${unitedStates.observed})"));
+    }
+
+    @Test
+    void resolvedOnce() {
+        final BusinessCalendar calendar = BusinessCalendar.newBuilder().locale(Locale.ENGLISH)
+                .holiday(BusinessCalendar.UNITED_STATES.PUBLIC_HOLIDAYS).build();
+        // 2021/12/24 is observed for Christmas Day on Saturday
+        final Holiday observed = calendar.getHoliday(LocalDate.of(2021, 12, 24));
+        assertNotNull(observed);
+        assertSame(observed.name(), calendar.getHoliday(LocalDate.of(2021, 12, 24)).name());
+        assertSame(observed.name(), calendar.getHoliday(LocalDate.of(2022, 12, 26)).name());
+    }
+
+    @Test
+    void withLocale() {
+        final BusinessCalendar english = BusinessCalendar.newBuilder().locale(Locale.ENGLISH).cache(100)
+                .holiday(BusinessCalendar.JAPAN.PUBLIC_HOLIDAYS).build();
+        final BusinessCalendar japanese = english.withLocale(Locale.JAPANESE);
+        assertSame(english, english.withLocale(Locale.ENGLISH));
+        assertSame(japanese.getHoliday(LocalDate.of(2021, 5, 3)).name(), english.withLocale(Locale.JAPANESE).getHoliday(LocalDate.of(2021, 5, 3)).name());
+        assertEquals("Constitution Memorial Day", english.getHoliday(LocalDate.of(2021, 5, 3)).name());
+        assertEquals("憲法記念日", japanese.getHoliday(LocalDate.of(2021, 5, 3)).name());
+        assertTrue(japanese.isHoliday(LocalDate.of(2021, 5, 3)));
+        // the cache is shared
+        assertEquals(1, english.getCacheStats().misses());
+        assertEquals(english.getCacheStats(), japanese.getCacheStats());
+    }
+}
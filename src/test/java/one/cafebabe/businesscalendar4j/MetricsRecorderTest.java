@@ -0,0 +1,119 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static one.cafebabe.businesscalendar4j.BusinessCalendarMetrics.Query.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Execution(ExecutionMode.CONCURRENT)
+class MetricsRecorderTest {
+    @Test
+    void queries() {
+        final MetricsRecorder metrics = new MetricsRecorder();
+        final BusinessCalendar calendar = BusinessCalendar.newBuilder()
+                .metrics(metrics)
+                .on(DayOfWeek.SUNDAY).holiday("Sunday")
+                .on(1, 1).holiday("New Year's Day")
+                .hours("9-17")
+                .build();
+        assertTrue(calendar.isHoliday(LocalDate.of(2021, 1, 1)));
+        assertFalse(calendar.isHoliday(LocalDate.of(2021, 1, 4)));
+        assertEquals("New Year's Day", calendar.getHoliday(LocalDate.of(2021, 1, 1)).name());
+        assertEquals(LocalDateTime.of(2021, 1, 2, 9, 0), calendar.nextBusinessHourStart(LocalDateTime.of(2021, 1, 1, 10, 0)));
+
+        assertEquals(2, metrics.getCount(IS_HOLIDAY));
+        assertEquals(1, metrics.getCount(GET_HOLIDAY));
+        // nested queries are not counted
+        assertEquals(1, metrics.getCount(NEXT_BUSINESS_HOUR_START));
+        assertEquals(0, metrics.getCount(FIRST_BUSINESS_DAY));
+        assertTrue(0 < metrics.getRulesEvaluatedPerQuery(IS_HOLIDAY));
+        long histogramTotal = 0;
+        for (long count : metrics.getLatencyHistogram(IS_HOLIDAY)) {
+            histogramTotal += count;
+        }
+        assertEquals(2, histogramTotal);
+        assertTrue(0 < metrics.getLatencyPercentile(IS_HOLIDAY, 50));
+    }
+
+    @Test
+    void index() {
+        final MetricsRecorder metrics = new MetricsRecorder();
+        final BusinessCalendar calendar = BusinessCalendar.newBuilder()
+                .metrics(metrics)
+                .on(DayOfWeek.SUNDAY).holiday("Sunday")
+                .index(2021, 2021)
+                .build();
+        assertTrue(calendar.isHoliday(LocalDate.of(2021, 1, 3)));
+        // no rule is evaluated on index hits
+        assertEquals(0, metrics.getRulesEvaluatedPerQuery(IS_HOLIDAY));
+        assertTrue(calendar.isHoliday(LocalDate.of(2022, 1, 2)));
+        assertEquals(1, metrics.getHits(BusinessCalendarMetrics.Cache.INDEX));
+        assertEquals(1, metrics.getMisses(BusinessCalendarMetrics.Cache.INDEX));
+        assertTrue(0 < metrics.getRulesEvaluatedPerQuery(IS_HOLIDAY));
+    }
+
+    @Test
+    void bucket() {
+        assertEquals(0, MetricsRecorder.bucket(0));
+        assertEquals(1, MetricsRecorder.bucket(1));
+        assertEquals(2, MetricsRecorder.bucket(3));
+        assertEquals(11, MetricsRecorder.bucket(1024));
+        assertEquals(MetricsRecorder.BUCKETS - 1, MetricsRecorder.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    void reload() throws IOException {
+        final MetricsRecorder metrics = new MetricsRecorder();
+        final Path path = CsvBasedConfiguration.write("holiday,2021/12/24,just holiday\nhour,sat,13-17\n");
+        BusinessCalendar.newBuilder().metrics(metrics).csv(path).build();
+        assertEquals(1, metrics.getReloadCount());
+        assertEquals(0, metrics.getReloadFailureCount());
+        assertEquals(1, metrics.getParseWarningCount());
+        assertTrue(0 < metrics.getBytesFetched());
+        assertTrue(0 < metrics.getReloadNanos());
+    }
+
+    @Test
+    void mbean() throws JMException {
+        final MetricsRecorder metrics = new MetricsRecorder();
+        final ObjectName name = metrics.registerMBean("one.cafebabe.businesscalendar4j:type=Metrics,name=MetricsRecorderTest");
+        try {
+            final BusinessCalendar calendar = BusinessCalendar.newBuilder().metrics(metrics).build();
+            calendar.isBusinessDay(LocalDate.of(2021, 1, 1));
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(0L, server.getAttribute(name, "ReloadCount"));
+            assertNotNull(server.getAttribute(name, "QueryCounts"));
+            assertTrue(0 < (long) server.invoke(name, "latencyPercentileNanos", new Object[]{"IS_BUSINESS_DAY", 99d},
+                    new String[]{String.class.getName(), double.class.getName()}));
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+}
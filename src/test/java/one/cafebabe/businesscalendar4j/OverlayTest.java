@@ -0,0 +1,116 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Execution(ExecutionMode.CONCURRENT)
+class OverlayTest {
+    private static BusinessCalendarBuilder store() {
+        return BusinessCalendar.newBuilder()
+                .on(DayOfWeek.SUNDAY).holiday("Sunday")
+                .on(12, 25).holiday("Christmas")
+                .hours("10-20");
+    }
+
+    @Test
+    void overridesRules() {
+        final LocalDate typhoon = LocalDate.of(2021, 12, 22);
+        final LocalDate christmas = LocalDate.of(2021, 12, 25);
+        final LocalDate shortened = LocalDate.of(2021, 12, 24);
+        for (BusinessCalendarBuilder builder : List.of(store(), store().index(2021, 2021).cache(100),
+                store().gregorianCycle(), store().closedForm(2021, 2021))) {
+            final BusinessCalendar calendar = builder.build();
+            final BusinessCalendar view = calendar.withLocale(Locale.JAPANESE);
+            assertEquals(5, calendar.countBusinessDays(LocalDate.of(2021, 12, 20), LocalDate.of(2021, 12, 26)));
+
+            calendar.addHoliday(typhoon, "Typhoon");
+            calendar.removeHoliday(christmas);
+            calendar.overrideHours(shortened, "10-15");
+            assertEquals("Typhoon", view.getHoliday(typhoon).name());
+            assertFalse(calendar.isBusinessDay(typhoon));
+            assertTrue(calendar.getBusinessHourSlots(typhoon).isEmpty());
+            assertTrue(calendar.isBusinessDay(christmas));
+            assertEquals(christmas.atTime(20, 0), calendar.getBusinessHourSlots(christmas).get(0).to());
+            assertEquals(shortened.atTime(15, 0), calendar.getBusinessHourSlots(shortened).get(0).to());
+            assertFalse(calendar.isBusinessHour(LocalDateTime.of(shortened, LocalTime.of(16, 0))));
+            assertEquals(LocalDate.of(2021, 12, 21), calendar.lastBusinessDay(typhoon));
+            assertEquals(5, calendar.countBusinessDays(LocalDate.of(2021, 12, 20), LocalDate.of(2021, 12, 26)));
+            assertEquals(4, calendar.countBusinessDays(LocalDate.of(2021, 12, 20), LocalDate.of(2021, 12, 24)));
+
+            calendar.clearOverride(typhoon);
+            calendar.clearOverride(christmas);
+            calendar.clearOverride(shortened);
+            assertTrue(calendar.isBusinessDay(typhoon));
+            assertEquals("Christmas", calendar.getHoliday(christmas).name());
+            assertEquals(shortened.atTime(20, 0), calendar.getBusinessHourSlots(shortened).get(0).to());
+        }
+        assertThrows(IllegalArgumentException.class, () -> store().build().overrideHours(shortened, "15-10"));
+    }
+
+    @Test
+    void outsideClosedFormHorizon() {
+        // Labor Day 2030 is a holiday by the rules, but the closed form counts it as an open Monday
+        final LocalDate laborDay = LocalDate.of(2030, 9, 2);
+        final BusinessCalendar calendar = BusinessCalendar.newBuilder()
+                .holiday(BusinessCalendar.UNITED_STATES.PUBLIC_HOLIDAYS)
+                .closedForm(2021, 2021).build();
+        assertEquals(1, calendar.countBusinessDays(laborDay, laborDay));
+        calendar.addHoliday(laborDay, "Typhoon");
+        assertEquals(0, calendar.countBusinessDays(laborDay, laborDay));
+        calendar.removeHoliday(laborDay);
+        assertEquals(1, calendar.countBusinessDays(laborDay, laborDay));
+    }
+
+    @Test
+    void journal() throws IOException {
+        final Path journal = Files.createTempFile("overlay", ".journal");
+        Files.delete(journal);
+        final BusinessCalendar calendar = store().overlayJournal(journal).build();
+        calendar.addHoliday(LocalDate.of(2021, 12, 22), "Typhoon, again");
+        calendar.addHoliday(LocalDate.of(2021, 12, 23), "Typhoon");
+        calendar.removeHoliday(LocalDate.of(2021, 12, 25));
+        calendar.overrideHours(LocalDate.of(2021, 12, 24), "10-12, 13-15");
+        calendar.clearOverride(LocalDate.of(2021, 12, 23));
+        assertEquals(5, Files.readAllLines(journal).size());
+        Files.writeString(journal, "malformed,line\n", StandardOpenOption.APPEND);
+
+        final BusinessCalendar restarted = store().overlayJournal(journal).build();
+        assertEquals("Typhoon, again", restarted.getHoliday(LocalDate.of(2021, 12, 22)).name());
+        assertTrue(restarted.isBusinessDay(LocalDate.of(2021, 12, 23)));
+        assertTrue(restarted.isBusinessDay(LocalDate.of(2021, 12, 25)));
+        assertEquals(2, restarted.getBusinessHourSlots(LocalDate.of(2021, 12, 24)).size());
+        // compacted to one line per date
+        assertEquals(List.of("holiday,2021-12-22,Typhoon, again", "hours,2021-12-24,10:00-12:00,13:00-15:00", "open,2021-12-25"),
+                Files.readAllLines(journal));
+        Files.delete(journal);
+    }
+}
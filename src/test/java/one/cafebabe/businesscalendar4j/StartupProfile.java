@@ -0,0 +1,80 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the time until the first query is answered and the peak RSS of:
+ * <ul>
+ *     <li>eager: JVM, cabinet office data fetched synchronously in the static initializer (default)</li>
+ *     <li>deferred: JVM, -DSYUKUJITSU_DEFERRED_FETCH=true</li>
+ *     <li>native: native executable built from this class, if the path is given as the first argument</li>
+ * </ul>
+ * Run with "./gradlew startupProfile" or "./gradlew startupProfile --args=/path/to/native-executable"
+ */
+public class StartupProfile {
+    /**
+     * @param args "query" to run a single measurement in this process, or an optional path to the native executable
+     * @throws Exception failed to spawn child processes
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1 && args[0].equals("query")) {
+            query();
+            return;
+        }
+        final String java = ProcessHandle.current().info().command().orElse("java");
+        final String classpath = System.getProperty("java.class.path");
+        final String mainClass = StartupProfile.class.getName();
+        System.out.println("mode,wall clock[ms],peak RSS[KiB],holiday");
+        profile("eager", List.of(java, "-cp", classpath, mainClass, "query"));
+        profile("deferred", List.of(java, "-DSYUKUJITSU_DEFERRED_FETCH=true", "-cp", classpath, mainClass, "query"));
+        if (args.length == 1) {
+            profile("native", List.of(args[0], "query"));
+        }
+    }
+
+    private static void profile(String mode, List<String> command) throws IOException, InterruptedException {
+        final long start = System.nanoTime();
+        final Process process = new ProcessBuilder(new ArrayList<>(command)).redirectErrorStream(false).start();
+        final String output = new String(process.getInputStream().readAllBytes()).trim();
+        process.waitFor();
+        final long elapsed = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("%s,%d,%s%n", mode, elapsed, output);
+    }
+
+    private static void query() throws IOException {
+        final Holiday holiday = BusinessCalendar.newBuilder().holiday(BusinessCalendar.JAPAN.PUBLIC_HOLIDAYS).build()
+                .getHoliday(LocalDate.of(2021, 5, 3));
+        System.out.printf("%s,%s%n", peakRss(), holiday);
+        // don't wait for the background fetch
+        System.exit(0);
+    }
+
+    private static String peakRss() throws IOException {
+        for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+            if (line.startsWith("VmHWM:")) {
+                return line.replaceAll("[^0-9]", "");
+            }
+        }
+        return "n/a";
+    }
+}
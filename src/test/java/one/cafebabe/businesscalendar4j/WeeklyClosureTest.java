@@ -0,0 +1,81 @@
+/*
+   Copyright 2021 the original author or authors.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package one.cafebabe.businesscalendar4j;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Execution(ExecutionMode.CONCURRENT)
+class WeeklyClosureTest {
+    @Test
+    void sameAsScanningInTheHorizon() {
+        final BusinessCalendar scanned = BusinessCalendar.newBuilder().holiday(BusinessCalendar.UNITED_STATES.PUBLIC_HOLIDAYS)
+                .on(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY).holiday("weekend").build();
+        final BusinessCalendar closedForm = BusinessCalendar.newBuilder().holiday(BusinessCalendar.UNITED_STATES.PUBLIC_HOLIDAYS)
+                .on(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY).holiday("weekend").closedForm(2000, 2030).build();
+        final Random random = new Random(48);
+        final LocalDate first = LocalDate.of(2000, 1, 1);
+        for (int i = 0; i < 200; i++) {
+            final LocalDate from = first.plusDays(random.nextInt(11323));
+            final LocalDate to = from.plusDays(random.nextInt((int) (LocalDate.of(2030, 12, 31).toEpochDay() - from.toEpochDay() + 1)));
+            assertEquals(scanned.countBusinessDays(from, to), closedForm.countBusinessDays(from, to), from + "-" + to);
+            assertEquals(scanned.getBusinessDaysBetween(from, to).size(), closedForm.countBusinessDays(to, from));
+        }
+        // outside the horizon, only weekends are closed. 2031/1/1 is a Wednesday
+        assertEquals(23, closedForm.countBusinessDays(LocalDate.of(2031, 1, 1), LocalDate.of(2031, 1, 31)));
+        assertEquals(0, closedForm.countBusinessDays(LocalDate.of(2031, 1, 4), LocalDate.of(2031, 1, 5)));
+    }
+
+    @Test
+    void centuries() {
+        final BusinessCalendar calendar = BusinessCalendar.newBuilder().on(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY)
+                .holiday("weekend").on(12, 25).holiday("Christmas").closedForm(2000, 2000).build();
+        long expected = 0;
+        final LocalDate from = LocalDate.of(1600, 3, 1);
+        final LocalDate to = LocalDate.of(2400, 2, 29);
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            final DayOfWeek dayOfWeek = date.getDayOfWeek();
+            final boolean christmas2000 = date.equals(LocalDate.of(2000, 12, 25));
+            if (dayOfWeek != DayOfWeek.SATURDAY && dayOfWeek != DayOfWeek.SUNDAY && !christmas2000) {
+                expected++;
+            }
+        }
+        assertEquals(expected, calendar.countBusinessDays(from, to));
+        assertEquals(1, calendar.countBusinessDays(LocalDate.of(2000, 12, 25), LocalDate.of(2000, 12, 26)));
+        assertEquals(0, calendar.countBusinessDays(LocalDate.of(1999, 12, 25), LocalDate.of(1999, 12, 26)));
+        assertThrows(IllegalArgumentException.class, () -> BusinessCalendar.newBuilder().closedForm(2001, 2000));
+    }
+
+    @Test
+    void derivedAgainOnReload() throws IOException {
+        final Path path = CsvBasedConfiguration.write("holiday,SAT,SUN,weekend\nholiday,2021/12/24,Christmas Eve\n");
+        final CsvConfiguration conf = CsvConfiguration.getInstance(path);
+        final BusinessCalendar calendar = BusinessCalendar.newBuilder().csv(conf).closedForm(2021, 2021).build();
+        assertEquals(4, calendar.countBusinessDays(LocalDate.of(2021, 12, 20), LocalDate.of(2021, 12, 26)));
+        CsvBasedConfiguration.write(path, "holiday,SAT,SUN,weekend\nholiday,2021/12/24,Christmas Eve\nholiday,2021/12/23,inventory\n");
+        conf.reload();
+        assertEquals(3, calendar.countBusinessDays(LocalDate.of(2021, 12, 20), LocalDate.of(2021, 12, 26)));
+    }
+}
@@ -36,7 +36,7 @@ public class 日本の祝休日アルゴリズムTest {
     final static BusinessCalendar CALENDAR = BusinessCalendar.newBuilder().holiday(BusinessCalendar.JAPAN.PUBLIC_HOLIDAYS).locale(Locale.JAPANESE).build();
     final static Japan j = BusinessCalendar.JAPAN;
 
-    static TreeMap<LocalDate, String> 祝休日Map待避;
+    static HolidayMap 祝休日Map待避;
 
     @BeforeAll
     static void init() throws IOException {
@@ -47,7 +47,7 @@ public class 日本の祝休日アルゴリズムTest {
                 ".japanese", Charset.forName("Shift_JIS"));
         祝休日Map待避 = j.csv.holidayMap;
         // 1970年1月1日元日(特にこの日付に意味は無い)まで残して、以降はアルゴリズムで答え合わせする
-        j.csv.holidayMap = new TreeMap<>(祝休日Map待避.subMap(LocalDate.of(1955, 1, 1), LocalDate.of(1970, 1, 1)));
+        j.csv.holidayMap = 祝休日Map待避.subMap(LocalDate.of(1955, 1, 1), LocalDate.of(1970, 1, 1));
     }
 
 